@@ -6,6 +6,14 @@ public class Globals {
     public static final double ENERGY_STROKE_WIDTH = 4;
     public static final String GRIDFLOW_BLUE = "#008EB0";
 
+    // Undo history
+    public static final long HISTORY_MEMORY_BUDGET = 64L * 1024 * 1024; // bytes the undo and redo states may take each
+    public static final int HISTORY_UNCOMPRESSED_STATES = 5; // the most recent states are kept as they are, older ones are compressed
+
+    // Level of detail
+    public static final double LOD_NAMES_MIN_SCALE = 0.5; // component names and labels are hidden when zoomed out further
+    public static final double LOD_GLYPHS_MIN_SCALE = 0.25; // components are drawn as simple glyphs on one canvas when zoomed out further
+
     // Associations
     public static final double ASSOC_HANDLE_RADIUS = 10;
 
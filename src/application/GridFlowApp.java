@@ -25,9 +25,11 @@ import security.LoginUIViewController;
 import security.LoginController;
 import simulation.SimulationController;
 import visualization.VisualizationController;
+import visualization.minimap.Minimap;
+import visualization.minimap.MinimapController;
 import construction.ConstructionController;
 
-public class GridFlowApp extends Application implements GridFlowEventListener {
+public class GridFlowApp extends Application {
 
     private static final String TITLE = "GridFlow";
     public static final String WINDOW_ICON_PATH = "/resources/icon.png";
@@ -35,9 +37,12 @@ public class GridFlowApp extends Application implements GridFlowEventListener {
     private static final int WINDOW_HEIGHT = 720;
     private static final int LOGIN_WIDTH = 1000;
     private static final int LOGIN_HEIGHT = 632;
+    private static final int MINIMAP_MARGIN = 10;
 
     private GridFlowEventManager gridFlowEventManager;
     private Stage primaryStage;
+    // the subscriptions of the modules of the logged in session, disposed when the session ends
+    private SubscriptionScope sessionScope = null;
 
     @Override
     public void start(Stage primaryStage) throws Exception {
@@ -47,8 +52,9 @@ public class GridFlowApp extends Application implements GridFlowEventListener {
         this.gridFlowEventManager = new GridFlowEventManager();
         this.primaryStage = primaryStage;
 
-        /* Add the application as an event listener */
-        gridFlowEventManager.addListener(this);
+        /* Listen for logins and account switches */
+        gridFlowEventManager.subscribe(LoginEvent.class, this::handleLoginEvent);
+        gridFlowEventManager.subscribe(ReLoginEvent.class, this::handleReLoginEvent);
 
         /* Open login screen */
         startLogin();
@@ -80,31 +86,42 @@ public class GridFlowApp extends Application implements GridFlowEventListener {
     }
 
     /* This waits for a successful login before displaying the main application */
-    @Override
-    public void handleEvent(GridFlowEvent gridFlowEvent) {
-        if (gridFlowEvent instanceof LoginEvent) {
-            /* User successfully logged in */
-            /* Run the application once login is successful */
-            Access permissionLevel = ((LoginEvent)gridFlowEvent).getAccess();
-            try {
-                startApplication(permissionLevel);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+    private void handleLoginEvent(LoginEvent event) {
+        /* User successfully logged in */
+        /* Run the application once login is successful */
+        Access permissionLevel = event.getAccess();
+        try {
+            startApplication(permissionLevel);
+        } catch (Exception e) {
+            e.printStackTrace();
         }
-        if (gridFlowEvent instanceof ReLoginEvent) {
-            /* User wants to login as a different user */
-            /* Open the login screen */
-            try {
-                startLogin();
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+    }
+
+    private void handleReLoginEvent(ReLoginEvent event) {
+        /* User wants to login as a different user */
+        /* The modules of the old session stop listening before the login screen opens */
+        endSession();
+        /* Open the login screen */
+        try {
+            startLogin();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void endSession() {
+        if (sessionScope != null) {
+            sessionScope.dispose();
+            sessionScope = null;
         }
     }
 
     /* This initializes and displays the main application */
     public void startApplication(Access permissionLevel) throws Exception {
+        /* Everything the modules of this session subscribe to is removed with the session */
+        endSession();
+        sessionScope = gridFlowEventManager.openScope();
+
         /* Create GUI elements */
         Group root = new Group();
         Scene scene = new Scene(root, WINDOW_WIDTH, WINDOW_HEIGHT, Color.DARKGRAY);
@@ -124,10 +141,10 @@ public class GridFlowApp extends Application implements GridFlowEventListener {
 
         // Account Controller
         AccountController accountController = new AccountController(scene);
-        gridFlowEventManager.addListener(accountController);
+        sessionScope.subscribe(OpenAccountsEvent.class, e -> accountController.openAccountWindow());
 
         // Construction Module
-        ConstructionController constructionController = new ConstructionController(menuFunctionController.getGrid(), gridFlowEventManager, primaryStage);
+        ConstructionController constructionController = new ConstructionController(menuFunctionController.getGrid(), gridFlowEventManager, sessionScope, primaryStage);
 
         FXMLLoader buildMenuViewLoader = new FXMLLoader(getClass().getResource("/construction/buildMenu/BuildMenuView.fxml"));
         Node buildMenuView = buildMenuViewLoader.load();
@@ -144,11 +161,21 @@ public class GridFlowApp extends Application implements GridFlowEventListener {
 
         // Visualization Module
         VisualizationController visualizationController = new VisualizationController(menuFunctionController.getGrid(), constructionController.getCanvasFacade());
-        gridFlowEventManager.addListener(visualizationController);
+        sessionScope.subscribeCoalesced(GridEnergizedEvent.class, GridEnergizedEvent::mergeWith,
+                visualizationController::handleGridEnergized);
+
+        // Minimap, checked after the visualization showed the simulation
+        MinimapController minimapController = new MinimapController(menuFunctionController.getGrid(),
+                constructionController.getCanvasFacade().getCanvas(), scene);
+        sessionScope.subscribe(GridChangedEvent.class, minimapController::handleGridChanged);
+        sessionScope.subscribeCoalesced(GridEnergizedEvent.class, GridEnergizedEvent::mergeWith,
+                minimapController::handleGridEnergized);
 
         // Simulation Module
         SimulationController simulationController = new SimulationController(menuFunctionController.getGrid(), gridFlowEventManager);
-        gridFlowEventManager.addListener(simulationController);
+        sessionScope.subscribeCoalesced(GridChangedEvent.class, GridChangedEvent::mergeWith,
+                simulationController::handleGridChanged);
+        sessionScope.onDispose(simulationController::dispose);
 
         // Change accessible functionality based on permission level
         buildMenuViewController.setPermissions(permissionLevel);
@@ -167,7 +194,12 @@ public class GridFlowApp extends Application implements GridFlowEventListener {
         BorderPane.setMargin(buildMenuView, insets);
         BorderPane.setMargin(propertiesMenuView, insets);
 
-        root.getChildren().addAll(constructionController.getCanvasFacade().getCanvas(), UI);
+        // the minimap sits in the bottom right corner of the window
+        Minimap minimap = minimapController.getMinimap();
+        minimap.layoutXProperty().bind(scene.widthProperty().subtract(minimap.widthProperty()).subtract(MINIMAP_MARGIN));
+        minimap.layoutYProperty().bind(scene.heightProperty().subtract(minimap.heightProperty()).subtract(MINIMAP_MARGIN));
+
+        root.getChildren().addAll(constructionController.getCanvasFacade().getCanvas(), UI, minimap);
 
         Rectangle2D screenBounds = Screen.getPrimary().getBounds();
 
@@ -182,4 +214,4 @@ public class GridFlowApp extends Application implements GridFlowEventListener {
     public static void main(String[] args) {
         launch(args);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -1,7 +1,32 @@
 package application.events;
 
 import construction.ToolType;
+import domain.components.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 public class GridChangedEvent implements GridFlowEvent {
     public ToolType toolCausingChange = null;
+    // the components touched by the change, null if unknown (the whole grid is re-simulated)
+    public List<Component> changedComponents = null;
+    // the components the change took out of the grid, only known along with changedComponents
+    public List<Component> removedComponents = new ArrayList<>();
+
+    // one change covering this one and the newer one, used when changes are coalesced
+    public GridChangedEvent mergeWith(GridChangedEvent newer) {
+        GridChangedEvent merged = new GridChangedEvent();
+        merged.toolCausingChange = newer.toolCausingChange;
+        if (changedComponents != null && newer.changedComponents != null) {
+            Set<Component> components = new LinkedHashSet<>(changedComponents);
+            components.addAll(newer.changedComponents);
+            merged.changedComponents = new ArrayList<>(components);
+            Set<Component> removed = new LinkedHashSet<>(removedComponents);
+            removed.addAll(newer.removedComponents);
+            merged.removedComponents = new ArrayList<>(removed);
+        }
+        return merged;
+    }
 }
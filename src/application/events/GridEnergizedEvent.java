@@ -1,4 +1,17 @@
 package application.events;
 
+import simulation.EnergizationDelta;
+
 public class GridEnergizedEvent implements GridFlowEvent {
+    // what the simulation changed, null if the whole grid must be redisplayed
+    public EnergizationDelta delta = null;
+
+    // one event showing the changes of this one and the newer one, used when events are coalesced
+    public GridEnergizedEvent mergeWith(GridEnergizedEvent newer) {
+        GridEnergizedEvent merged = new GridEnergizedEvent();
+        if (delta != null && newer.delta != null) {
+            merged.delta = delta.mergeWith(newer.delta);
+        }
+        return merged;
+    }
 }
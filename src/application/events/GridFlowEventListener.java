@@ -1,5 +0,0 @@
-package application.events;
-
-public interface GridFlowEventListener {
-    void handleEvent(GridFlowEvent gridFlowEvent);
-}
@@ -1,32 +1,51 @@
 package application.events;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
 
+// Sends each event only to the handlers subscribed to its class, in the order they subscribed.
+// A handler is called right away, or once per FX pulse with the events sent since merged into one.
+// Subscribing and unsubscribing is safe from any thread, also while an event is sent.
 public class GridFlowEventManager {
 
-    private final List<GridFlowEventListener> listeners;
+    private final Map<Class<?>, List<Subscription<?>>> subscriptions = new ConcurrentHashMap<>();
 
-    public GridFlowEventManager() {
-        listeners = new ArrayList<>();
+    // the handler runs on the sending thread before sendEvent returns
+    public <T extends GridFlowEvent> Subscription<T> subscribe(Class<T> type, Consumer<T> handler) {
+        return add(new Subscription<>(this, type, handler, null));
     }
 
-    public void addListener(GridFlowEventListener listener) {
-        listeners.add(listener);
+    // the events sent before the handler gets to run are merged into one, the handler then runs once on the
+    // FX thread with the merged event, so a burst of changes is handled once
+    public <T extends GridFlowEvent> Subscription<T> subscribeCoalesced(Class<T> type, BinaryOperator<T> merge,
+                                                                        Consumer<T> handler) {
+        return add(new Subscription<>(this, type, handler, merge));
     }
 
-    /* This send event is special because it only goes to the GridFlowApp class.
-     * This avoids a concurrent modification error when the GridFlowApp class creates or removes listeners
-     * in response to the sent event.
-     * GridFlowApp was added first and should always be the first listener.
-     */
-    public void sendApplicationOnlyEvent(GridFlowEvent event) {
-        listeners.get(0).handleEvent(event);
+    // a scope for subscriptions that are all removed together when it is disposed
+    public SubscriptionScope openScope() {
+        return new SubscriptionScope(this);
     }
 
     public void sendEvent(GridFlowEvent gridFlowEvent) {
-        for (GridFlowEventListener listener : listeners) {
-            listener.handleEvent(gridFlowEvent);
+        List<Subscription<?>> handlers = subscriptions.get(gridFlowEvent.getClass());
+        if (handlers == null) return;
+        for (Subscription<?> subscription : handlers) {
+            subscription.deliver(gridFlowEvent);
         }
     }
+
+    private <T extends GridFlowEvent> Subscription<T> add(Subscription<T> subscription) {
+        subscriptions.computeIfAbsent(subscription.getType(), type -> new CopyOnWriteArrayList<>()).add(subscription);
+        return subscription;
+    }
+
+    void remove(Subscription<?> subscription) {
+        List<Subscription<?>> handlers = subscriptions.get(subscription.getType());
+        if (handlers != null) handlers.remove(subscription);
+    }
 }
@@ -0,0 +1,7 @@
+package application.events;
+
+// the grid was cleared and filled with another one, like when a file is loaded
+// sent before the GridChangedEvent for the new grid
+public class GridReplacedEvent implements GridFlowEvent {
+
+}
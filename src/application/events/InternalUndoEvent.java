@@ -1,5 +0,0 @@
-package application.events;
-
-public class InternalUndoEvent implements GridFlowEvent {
-
-}
@@ -0,0 +1,66 @@
+package application.events;
+
+import javafx.application.Platform;
+
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+
+// A handler subscribed to one event class. Once unsubscribed it is not called again, also not for events
+// that were waiting to be delivered.
+public class Subscription<T extends GridFlowEvent> {
+
+    private final GridFlowEventManager eventManager;
+    private final Class<T> type;
+    private final Consumer<T> handler;
+    private final BinaryOperator<T> merge; // only set if the events are coalesced
+
+    // the merged events waiting for the next pulse
+    private T pending = null;
+    private volatile boolean active = true;
+
+    Subscription(GridFlowEventManager eventManager, Class<T> type, Consumer<T> handler, BinaryOperator<T> merge) {
+        this.eventManager = eventManager;
+        this.type = type;
+        this.handler = handler;
+        this.merge = merge;
+    }
+
+    void deliver(GridFlowEvent gridFlowEvent) {
+        if (!active) return;
+        T event = type.cast(gridFlowEvent);
+        if (merge != null) {
+            deliverCoalesced(event);
+        } else {
+            handler.accept(event);
+        }
+    }
+
+    private void deliverCoalesced(T event) {
+        synchronized (this) {
+            if (pending != null) {
+                pending = merge.apply(pending, event);
+                return;
+            }
+            pending = event;
+        }
+        Platform.runLater(this::deliverPending);
+    }
+
+    private void deliverPending() {
+        T event;
+        synchronized (this) {
+            event = pending;
+            pending = null;
+        }
+        if (active && event != null) handler.accept(event);
+    }
+
+    public void unsubscribe() {
+        active = false;
+        eventManager.remove(this);
+    }
+
+    Class<T> getType() {
+        return type;
+    }
+}
@@ -0,0 +1,58 @@
+package application.events;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+
+// Subscriptions and clean up actions that live as long as one part of the application, like a logged in
+// session. Disposing the scope unsubscribes all of its handlers and runs the clean up actions, so nothing
+// from a torn down session is still called when events are sent.
+public class SubscriptionScope {
+
+    private final GridFlowEventManager eventManager;
+    private final List<Subscription<?>> subscriptions = new ArrayList<>();
+    private final List<Runnable> disposeActions = new ArrayList<>();
+    private boolean disposed = false;
+
+    SubscriptionScope(GridFlowEventManager eventManager) {
+        this.eventManager = eventManager;
+    }
+
+    public synchronized <T extends GridFlowEvent> Subscription<T> subscribe(Class<T> type, Consumer<T> handler) {
+        return add(eventManager.subscribe(type, handler));
+    }
+
+    public synchronized <T extends GridFlowEvent> Subscription<T> subscribeCoalesced(Class<T> type, BinaryOperator<T> merge,
+                                                                                     Consumer<T> handler) {
+        return add(eventManager.subscribeCoalesced(type, merge, handler));
+    }
+
+    // runs the action when the scope is disposed, for what the scope's objects set up outside the event manager
+    public synchronized void onDispose(Runnable action) {
+        if (disposed) {
+            action.run();
+            return;
+        }
+        disposeActions.add(action);
+    }
+
+    public synchronized void dispose() {
+        if (disposed) return;
+        disposed = true;
+        subscriptions.forEach(Subscription::unsubscribe);
+        subscriptions.clear();
+        disposeActions.forEach(Runnable::run);
+        disposeActions.clear();
+    }
+
+    private <T extends GridFlowEvent> Subscription<T> add(Subscription<T> subscription) {
+        // a scope disposed while its module was still being set up does not keep the late subscription
+        if (disposed) {
+            subscription.unsubscribe();
+        } else {
+            subscriptions.add(subscription);
+        }
+        return subscription;
+    }
+}
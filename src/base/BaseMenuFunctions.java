@@ -3,6 +3,7 @@ package base;
 public interface BaseMenuFunctions {
     void undo();
     void redo();
+    String getHistorySummary();
     void delete();
     void selectAll();
     void zoomToFit();
@@ -38,6 +38,7 @@ public class BaseUIViewController {
     private VBox TopMenu;
     public MenuItem undoButton;
     public MenuItem redoButton;
+    public MenuItem historyInfo;
     public MenuItem deleteButton;
     public Menu EditMenu;
     public MenuItem clearButton;
@@ -53,6 +54,9 @@ public class BaseUIViewController {
         undoButton.setAccelerator(ctrlZ);
         redoButton.setAccelerator(ctrlShiftZ);
         deleteButton.setAccelerator(del);
+
+        // the size of the undo history is shown when the Edit menu opens
+        EditMenu.setOnShowing(e -> historyInfo.setText("History: " + baseMenuFunctions.getHistorySummary()));
     }
 
     // Make width of menu bar scale to width of windo
@@ -102,6 +106,9 @@ public class BaseUIViewController {
     @FXML
     private void loadGrid() { controller.loadGrid(TopMenu); }
 
+    @FXML
+    private void analyzeContingencies() { controller.analyzeContingencies(TopMenu); }
+
     @FXML
     private void undo() {
         baseMenuFunctions.undo();
@@ -0,0 +1,365 @@
+package base;
+
+import domain.Association;
+import domain.Grid;
+import domain.components.*;
+import domain.geometry.Point;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Text;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleConsumer;
+
+// Binary grid file (.gfb). Ids are stored once in a UUID table and strings once in a string table, records
+// refer to both by index. Layout, all big endian:
+//   header       magic, version
+//   uuid table   count, then two longs per id
+//   string table count, then a length and the UTF-8 bytes per string
+//   components   count, then one record per component starting with its type tag
+//   adjacency    per component the number of connections and their uuid indices, -1 for none
+//   associations count, then one record per association
+// Records are read into the components directly, without going through text or the JSON nodes.
+class GridBinaryFile {
+    public static final String EXTENSION = ".gfb";
+
+    private static final int MAGIC = 0x47464231; // "GFB1"
+    private static final short VERSION = 1;
+    private static final int NONE = -1;
+
+    // type tags in the order of the GridFileManager type switch
+    private static final String[] TYPES = {"Breaker", "Cutout", "Jumper", "PowerSource", "Switch",
+            "Transformer", "Turbine", "Wire", "Pole", "ATS", "ConnectedLoadText"};
+
+    private final Map<UUID, Integer> uuidIndices = new HashMap<>();
+    private final List<UUID> uuids = new ArrayList<>();
+    private final Map<String, Integer> stringIndices = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+
+    public static boolean isBinaryPath(String path) {
+        return path.toLowerCase().endsWith(EXTENSION);
+    }
+
+    public static void write(Grid grid, String path) throws IOException {
+        new GridBinaryFile().writeGrid(grid, path);
+    }
+
+    private void writeGrid(Grid grid, String path) throws IOException {
+        List<Component> components = grid.getComponents();
+        List<Association> associations = grid.getAssociations();
+
+        // fill both tables first, the records only refer to them
+        components.forEach(component -> uuidIndex(component.getId()));
+        associations.forEach(association -> uuidIndex(association.getID()));
+        for (Component component : components) {
+            for (Component connection : getConnections(component)) {
+                if (connection != null) uuidIndex(connection.getId());
+            }
+            collectStrings(component);
+        }
+        for (Association association : associations) {
+            stringIndex(association.getLabel());
+            stringIndex(association.getSubLabel());
+            stringIndex(association.getAcronym());
+        }
+
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+
+            out.writeInt(uuids.size());
+            for (UUID uuid : uuids) {
+                out.writeLong(uuid.getMostSignificantBits());
+                out.writeLong(uuid.getLeastSignificantBits());
+            }
+
+            out.writeInt(strings.size());
+            for (String string : strings) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            out.writeInt(components.size());
+            for (Component component : components) {
+                writeComponent(out, component);
+            }
+
+            for (Component component : components) {
+                List<Component> connections = getConnections(component);
+                out.writeInt(connections.size());
+                for (Component connection : connections) {
+                    out.writeInt(connection == null ? NONE : uuidIndices.get(connection.getId()));
+                }
+            }
+
+            out.writeInt(associations.size());
+            for (Association association : associations) {
+                writeAssociation(out, association);
+            }
+        }
+    }
+
+    private void writeComponent(DataOutputStream out, Component component) throws IOException {
+        out.writeByte(typeTag(component));
+        out.writeInt(uuidIndices.get(component.getId()));
+        out.writeInt(stringIndex(component.getName()));
+        out.writeDouble(component.getAngle());
+        out.writeBoolean(component.isNameRight());
+
+        if (component instanceof Wire) {
+            Wire wire = (Wire) component;
+            writePoint(out, wire.getStart());
+            writePoint(out, wire.getEnd());
+            out.writeInt(wire.getBridgePoints().size());
+            for (Point bridgePoint : wire.getBridgePoints()) {
+                writePoint(out, bridgePoint);
+            }
+            return;
+        }
+        writePoint(out, component.getPosition());
+
+        if (component instanceof Closeable) {
+            Closeable closeable = (Closeable) component;
+            out.writeBoolean(closeable.isClosed());
+            out.writeBoolean(closeable.isClosedByDefault());
+            out.writeBoolean(closeable.isLocked());
+        }
+        if (component instanceof Breaker) {
+            Breaker breaker = (Breaker) component;
+            out.writeInt(stringIndex(breaker.getVoltage().toString()));
+            out.writeInt(stringIndex(breaker.getTandemID()));
+        }
+        if (component instanceof Source) {
+            Source source = (Source) component;
+            out.writeBoolean(source.isOn());
+        }
+        if (component instanceof ATS) {
+            ATS ats = (ATS) component;
+            out.writeBoolean(ats.isEnergized());
+            out.writeInt(ats.getState());
+            out.writeInt(stringIndex(ats.getATSCutOutID()));
+        }
+    }
+
+    private void writeAssociation(DataOutputStream out, Association association) throws IOException {
+        out.writeInt(uuidIndices.get(association.getID()));
+        out.writeInt(stringIndex(association.getLabel()));
+        out.writeInt(stringIndex(association.getSubLabel()));
+        out.writeInt(stringIndex(association.getAcronym()));
+        Rectangle rect = association.getAssociationIcon().getRect();
+        out.writeDouble(rect.getX());
+        out.writeDouble(rect.getY());
+        out.writeDouble(rect.getWidth());
+        out.writeDouble(rect.getHeight());
+        Text text = association.getAssociationIcon().getText();
+        out.writeDouble(text.getTranslateX());
+        out.writeDouble(text.getTranslateY());
+    }
+
+    private void collectStrings(Component component) {
+        stringIndex(component.getName());
+        if (component instanceof Breaker) {
+            Breaker breaker = (Breaker) component;
+            stringIndex(breaker.getVoltage().toString());
+            stringIndex(breaker.getTandemID());
+        }
+        if (component instanceof ATS) {
+            ATS ats = (ATS) component;
+            stringIndex(ats.getATSCutOutID());
+        }
+    }
+
+    // the connections in the order the component's setConnections expects them
+    private static List<Component> getConnections(Component component) {
+        if (component instanceof ATS) {
+            ATS ats = (ATS) component;
+            List<Component> connections = new ArrayList<>(2);
+            connections.add(ats.getConnections().isEmpty() ? null : ats.getConnections().get(0));
+            connections.add(ats.getMainLineNode());
+            return connections;
+        }
+        return component.getConnections();
+    }
+
+    private static void writePoint(DataOutputStream out, Point point) throws IOException {
+        out.writeDouble(point.getX());
+        out.writeDouble(point.getY());
+    }
+
+    private static int typeTag(Component component) {
+        String type = component.getClass().getSimpleName();
+        for (int i = 0; i < TYPES.length; i++) {
+            if (TYPES[i].equals(type)) return i;
+        }
+        throw new UnsupportedOperationException(type);
+    }
+
+    private int uuidIndex(UUID uuid) {
+        Integer index = uuidIndices.get(uuid);
+        if (index == null) {
+            index = uuids.size();
+            uuidIndices.put(uuid, index);
+            uuids.add(uuid);
+        }
+        return index;
+    }
+
+    private int stringIndex(String string) {
+        if (string == null) return NONE;
+        Integer index = stringIndices.get(string);
+        if (index == null) {
+            index = strings.size();
+            stringIndices.put(string, index);
+            strings.add(string);
+        }
+        return index;
+    }
+
+    // Maps the file and creates the components and associations straight from it, the ids and points are
+    // taken from the buffer as they are and connections are linked by their index in the UUID table.
+    // Returns null if the load was cancelled, throws if it is not a grid file.
+    public static GridFileManager.LoadedGrid read(String path, DoubleConsumer progress, BooleanSupplier cancelled) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        double length = Math.max(1, buffer.limit());
+
+        if (buffer.limit() < 6 || buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+            throw new IOException("Not a grid file: " + path);
+        }
+
+        UUID[] ids = new UUID[buffer.getInt()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = new UUID(buffer.getLong(), buffer.getLong());
+        }
+
+        String[] strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        // the components by the index of their id, for linking the connections
+        Component[] componentsByID = new Component[ids.length];
+        int componentCount = buffer.getInt();
+        List<Component> components = new ArrayList<>(componentCount);
+        for (int i = 0; i < componentCount; i++) {
+            if (cancelled.getAsBoolean()) return null;
+            String type = TYPES[buffer.get()];
+            int idIndex = buffer.getInt();
+            Component component = readComponent(buffer, type, ids[idIndex], strings);
+            componentsByID[idIndex] = component;
+            components.add(component);
+            progress.accept(buffer.position() / length);
+        }
+
+        for (Component component : components) {
+            int count = buffer.getInt();
+            List<Component> connections = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int index = buffer.getInt();
+                connections.add(index == NONE ? null : componentsByID[index]);
+            }
+            component.setConnections(connections);
+        }
+
+        int associationCount = buffer.getInt();
+        List<Association> associations = new ArrayList<>(associationCount);
+        for (int i = 0; i < associationCount; i++) {
+            UUID id = ids[buffer.getInt()];
+            String label = strings[buffer.getInt()];
+            String subLabel = strings[buffer.getInt()];
+            String acronym = strings[buffer.getInt()];
+            Point pos = readPoint(buffer);
+            double width = buffer.getDouble();
+            double height = buffer.getDouble();
+            Point labelPos = readPoint(buffer);
+            associations.add(new Association(id, label, subLabel, acronym, pos, width, height, labelPos));
+        }
+        return new GridFileManager.LoadedGrid(components, associations);
+    }
+
+    // the rest of the component's record after its type and id
+    private static Component readComponent(MappedByteBuffer buffer, String type, UUID id, String[] strings) {
+        String name = strings[buffer.getInt()];
+        double angle = buffer.getDouble();
+        boolean nameRight = buffer.get() != 0;
+
+        if (type.equals("Wire")) {
+            Point start = readPoint(buffer);
+            Point end = readPoint(buffer);
+            int bridgePointCount = buffer.getInt();
+            List<Point> bridgePoints = new ArrayList<>(bridgePointCount);
+            for (int i = 0; i < bridgePointCount; i++) {
+                bridgePoints.add(readPoint(buffer));
+            }
+            return new Wire(id, name, start, end, angle, bridgePoints, false, nameRight);
+        }
+        Point pos = readPoint(buffer);
+
+        switch (type) {
+            case "Breaker", "Cutout", "Jumper", "Switch" -> {
+                boolean closed = buffer.get() != 0;
+                boolean closedByDefault = buffer.get() != 0;
+                boolean locked = buffer.get() != 0;
+                return switch (type) {
+                    case "Breaker" -> new Breaker(id, name, pos, angle, closedByDefault, closed, locked, nameRight,
+                            Voltage.valueOf(strings[buffer.getInt()]), readString(buffer, strings));
+                    case "Cutout" -> new Cutout(id, name, pos, angle, closedByDefault, closed, locked, nameRight);
+                    case "Jumper" -> new Jumper(id, name, pos, angle, closedByDefault, closed, locked, nameRight);
+                    default -> new Switch(id, name, pos, angle, closedByDefault, closed, locked, nameRight);
+                };
+            }
+            case "PowerSource" -> {
+                return new PowerSource(id, name, pos, angle, buffer.get() != 0);
+            }
+            case "Turbine" -> {
+                return new Turbine(id, name, pos, angle, buffer.get() != 0);
+            }
+            case "ATS" -> {
+                boolean on = buffer.get() != 0;
+                boolean energized = buffer.get() != 0;
+                int state = buffer.getInt();
+                return new ATS(id, name, pos, angle, on, energized, state, readString(buffer, strings));
+            }
+            case "Transformer" -> {
+                return new Transformer(id, name, pos, angle, nameRight);
+            }
+            case "Pole" -> {
+                return new Pole(id, name, pos, angle, nameRight);
+            }
+            case "ConnectedLoadText" -> {
+                return new ConnectedLoadText(id, name, pos, angle, nameRight);
+            }
+            default -> throw new UnsupportedOperationException(type);
+        }
+    }
+
+    // a string table index that may be NONE
+    private static String readString(MappedByteBuffer buffer, String[] strings) {
+        int index = buffer.getInt();
+        return index == NONE ? null : strings[index];
+    }
+
+    private static Point readPoint(MappedByteBuffer buffer) {
+        return new Point(buffer.getDouble(), buffer.getDouble());
+    }
+}
@@ -1,23 +1,36 @@
 package base;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import domain.Association;
 import domain.Grid;
 import domain.components.*;
 import domain.geometry.Point;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleConsumer;
 
 public class GridFileManager {
+    private static final int SAVE_BUFFER_SIZE = 1 << 16;
+
     private Grid grid;
     private ObjectMapper mapper;
 
@@ -26,97 +39,176 @@ public class GridFileManager {
         mapper = new ObjectMapper();
     }
 
+    // paths ending in .gfb are saved in the binary format, everything else as JSON
     public void saveGrid(String path) throws IOException {
-        ObjectNode gridNode = mapper.createObjectNode();
+        if (GridBinaryFile.isBinaryPath(path)) {
+            GridBinaryFile.write(grid, path);
+        } else {
+            saveGrid(path, true);
+        }
+    }
 
-        // save components
-        ArrayNode components = mapper.createArrayNode();
-        grid.getComponents().forEach(c -> components.add(c.getObjectNode(mapper)));
-        gridNode.put("components", components);
+    // Writes each component and association straight to the generator instead of building a tree of the
+    // whole grid first, so saving needs no memory beyond the write buffer. The compact form leaves out the
+    // indentation, both forms are read back the same way.
+    public void saveGrid(String path, boolean pretty) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), SAVE_BUFFER_SIZE);
+             JsonGenerator generator = mapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            if (pretty) generator.setPrettyPrinter(new DefaultPrettyPrinter());
+
+            generator.writeStartObject();
+
+            // save components
+            generator.writeArrayFieldStart("components");
+            for (Component component : grid.getComponents()) {
+                component.writeJson(generator);
+            }
+            generator.writeEndArray();
 
-        // save associations
-        ArrayNode associations = mapper.createArrayNode();
-        grid.getAssociations().forEach(a -> associations.add(a.getObjectNode(mapper)));
-        gridNode.put("associations", associations);
+            // save associations
+            generator.writeArrayFieldStart("associations");
+            for (Association association : grid.getAssociations()) {
+                association.writeJson(generator);
+            }
+            generator.writeEndArray();
 
-        // write all the data to the file
-        ObjectWriter writer = mapper.writer(new DefaultPrettyPrinter());
-        writer.writeValue(new File(path), gridNode);
+            generator.writeEndObject();
+        }
     }
 
     public void loadGrid(String path) {
-        ObjectNode gridNode;
+        loadGrid(path, progress -> {}, () -> false);
+    }
+
+    // Reads the file and replaces the grid with it, a failed or cancelled load leaves the grid as it was.
+    // Returns true if the grid was replaced.
+    public boolean loadGrid(String path, DoubleConsumer progress, BooleanSupplier cancelled) {
+        LoadedGrid loaded = readGrid(path, progress, cancelled);
+        if (loaded == null) return false;
+        replaceGrid(loaded);
+        return true;
+    }
+
+    // Reads the components and associations of the file without touching the grid, so it can run off the FX
+    // thread. Progress is reported as the fraction of the file read. Returns null if the file cannot be read,
+    // is not a grid file or the load was cancelled.
+    public LoadedGrid readGrid(String path, DoubleConsumer progress, BooleanSupplier cancelled) {
         try {
-            JsonParser parser = mapper.getFactory().createParser(new File(path));
-            gridNode = mapper.readTree(parser);
-            parser.close();
-        } catch (IOException e) {
-            System.err.println("Cannot read file");
-            return;
+            LoadedGrid loaded = GridBinaryFile.isBinaryPath(path) ? GridBinaryFile.read(path, progress, cancelled)
+                    : readJsonGrid(path, progress, cancelled);
+            if (loaded != null) progress.accept(1);
+            return loaded;
+        } catch (IOException | RuntimeException e) {
+            // unknown component types and missing fields fail the load the same way as a broken file
+            System.err.println("Cannot read file: " + e);
+            return null;
         }
+    }
 
+    // puts the components and associations that were read in place of the grid's
+    public void replaceGrid(LoadedGrid loaded) {
         grid.clearGrid();
-        ArrayNode JSONComponents = (ArrayNode) gridNode.get("components");
-
-        // create components
-        for (JsonNode componentJSON : JSONComponents) {
-            Component component = switch (componentJSON.get("type").asText()) {
-                case "Breaker" -> new Breaker(componentJSON);
-                case "Cutout" -> new Cutout(componentJSON);
-                case "Jumper" -> new Jumper(componentJSON);
-                case "PowerSource" -> new PowerSource(componentJSON);
-                case "Switch" -> new Switch(componentJSON);
-                case "Transformer" -> new Transformer(componentJSON);
-                case "Turbine" -> new Turbine(componentJSON);
-                case "Wire" -> createWireFromJson(componentJSON);
-                case "Pole" -> new Pole(componentJSON);
-                case "ATS" -> new ATS(componentJSON);
-                default -> throw new UnsupportedOperationException();
-            };
-            grid.addComponent(component);
-        }
+        loaded.components.forEach(grid::addComponent);
+        loaded.associations.forEach(grid::addAssociation);
+    }
 
-        // connect components
-        for (int i = 0; i < grid.getComponents().size(); i++) {
-            Component component = grid.getComponents().get(i);
-            JsonNode componentJSON = JSONComponents.get(i);
-            component.setConnections(getConnectionsList(componentJSON));
+    // Reads the file one component at a time with the streaming parser instead of building a tree of the
+    // whole file, so only the components themselves and their connection ids are held while loading.
+    private LoadedGrid readJsonGrid(String path, DoubleConsumer progress, BooleanSupplier cancelled) throws IOException {
+        File file = new File(path);
+        double fileLength = Math.max(1, file.length());
+        List<Component> components = new ArrayList<>();
+        List<List<String>> connectionIDs = new ArrayList<>();
+        List<Association> associations = new ArrayList<>();
+
+        try (JsonParser parser = mapper.getFactory().createParser(file)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Not a grid file");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    if (cancelled.getAsBoolean()) return null;
+
+                    // a single component or association is small, reading it as a tree keeps the JsonNode constructors
+                    JsonNode node = parser.readValueAsTree();
+                    if (field.equals("components")) {
+                        components.add(createComponent(node));
+                        connectionIDs.add(getConnectionIDs(node));
+                    } else if (field.equals("associations")) {
+                        associations.add(new Association(node));
+                    }
+                    progress.accept(parser.getCurrentLocation().getByteOffset() / fileLength);
+                }
+            }
         }
 
-        // create associations from JSON
-        ArrayNode JSONAssociations = (ArrayNode) gridNode.get("associations");
-        if (JSONAssociations == null) return;
-        for (JsonNode associationJSON : JSONAssociations) {
-            Association association = new Association(associationJSON);
-            grid.addAssociation(association);
+        connect(components, connectionIDs);
+        return new LoadedGrid(components, associations);
+    }
+
+    // connects the components in one pass through an id map of the loaded components
+    private void connect(List<Component> components, List<List<String>> connectionIDs) {
+        Map<String, Component> componentsByID = new HashMap<>();
+        components.forEach(component -> componentsByID.put(component.getId().toString(), component));
+        for (int i = 0; i < components.size(); i++) {
+            List<Component> connections = new ArrayList<>();
+            connectionIDs.get(i).forEach(id -> connections.add(componentsByID.get(id)));
+            components.get(i).setConnections(connections);
         }
     }
 
+    private Component createComponent(JsonNode componentJSON) {
+        return switch (componentJSON.get("type").asText()) {
+            case "Breaker" -> new Breaker(componentJSON);
+            case "Cutout" -> new Cutout(componentJSON);
+            case "Jumper" -> new Jumper(componentJSON);
+            case "PowerSource" -> new PowerSource(componentJSON);
+            case "Switch" -> new Switch(componentJSON);
+            case "Transformer" -> new Transformer(componentJSON);
+            case "Turbine" -> new Turbine(componentJSON);
+            case "Wire" -> createWireFromJson(componentJSON);
+            case "Pole" -> new Pole(componentJSON);
+            case "ATS" -> new ATS(componentJSON);
+            case "ConnectedLoadText" -> new ConnectedLoadText(componentJSON);
+            default -> throw new UnsupportedOperationException();
+        };
+    }
+
     private Wire createWireFromJson(JsonNode node) {
         Point start = Point.fromString(node.get("start").asText());
         Point end = Point.fromString(node.get("end").asText());
         return new Wire(node, start, end);
     }
 
-    private List<Component> getConnectionsList(JsonNode node) {
-        List<Component> connections = new ArrayList<>();
+    // the ids in the order the component's setConnections expects them
+    private List<String> getConnectionIDs(JsonNode node) {
+        List<String> connections = new ArrayList<>();
         switch (node.get("type").asText()) {
-            case "Breaker", "Cutout", "Jumper", "Switch", "Transformer" -> {
-                connections.add(grid.getComponent(node.get("inWire").asText()));
-                connections.add(grid.getComponent(node.get("outWire").asText()));
+            case "Breaker", "Cutout", "Jumper", "Switch", "Transformer", "Pole", "ConnectedLoadText" -> {
+                connections.add(node.get("inWire").asText());
+                connections.add(node.get("outWire").asText());
             }
             case "PowerSource" -> {
-                connections.add(grid.getComponent(node.get("outWire").asText()));
+                connections.add(node.get("outWire").asText());
             }
             case "Turbine" -> {
-                connections.add(grid.getComponent(node.get("outWire1").asText()));
-                connections.add(grid.getComponent(node.get("outWire2").asText()));
+                connections.add(node.get("outWire1").asText());
+                connections.add(node.get("outWire2").asText());
+            }
+            case "ATS" -> {
+                connections.add(node.get("outWire").asText());
+                connections.add(node.get("mainLineNode").asText());
             }
             case "Wire" -> {
                 ArrayNode jsonConnections = (ArrayNode)node.get("connections");
-                jsonConnections.forEach(jsonConnection ->
-                    connections.add(grid.getComponent(jsonConnection.asText()))
-                );
+                jsonConnections.forEach(jsonConnection -> connections.add(jsonConnection.asText()));
             }
             default -> throw new UnsupportedOperationException();
         }
@@ -127,4 +219,14 @@ public class GridFileManager {
         return grid;
     }
 
+    // a grid read from a file that is not on the canvas yet
+    public static class LoadedGrid {
+        final List<Component> components;
+        final List<Association> associations;
+
+        LoadedGrid(List<Component> components, List<Association> associations) {
+            this.components = components;
+            this.associations = associations;
+        }
+    }
 }
@@ -2,12 +2,30 @@ package base;
 
 import application.events.GridChangedEvent;
 import application.events.GridFlowEventManager;
+import application.events.GridReplacedEvent;
 import domain.Grid;
+import domain.components.Closeable;
+import javafx.concurrent.Task;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
 import javafx.stage.Window;
+import simulation.ContingencyAnalyzer;
+import simulation.ContingencyResult;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.FutureTask;
@@ -16,6 +34,9 @@ public class MenuFunctionController {
 
     private static final String DEFAULT_PATH = ".";
     private static final String DEFAULT_FILENAME = "grid";
+    private static final int PROGRESS_WINDOW_WIDTH = 300;
+    private static final int RESULTS_WINDOW_WIDTH = 420;
+    private static final int RESULTS_WINDOW_HEIGHT = 360;
 
     private GridFileManager gridFileManager;
     private GridFlowEventManager gridFlowEventManager;
@@ -47,7 +68,8 @@ public class MenuFunctionController {
             // Retrieve the file chooser and configure
             FileChooser fc = futureFC.get();
             fc.setTitle("Save Grid File");
-            fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("JSON Files", "*.json"));
+            fc.getExtensionFilters().setAll(new FileChooser.ExtensionFilter("JSON Files", "*.json"),
+                    new FileChooser.ExtensionFilter("Binary Grid Files", "*.gfb"));
             fc.setInitialFileName(lastUsedFileName);
             fc.setInitialDirectory(lastUsedDirectory);
 
@@ -73,7 +95,8 @@ public class MenuFunctionController {
         try {
             FileChooser fc = futureFC.get();
             fc.setTitle("Load Grid File");
-            fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("JSON Files", "*.json"));
+            fc.getExtensionFilters().setAll(new FileChooser.ExtensionFilter("JSON Files", "*.json"),
+                    new FileChooser.ExtensionFilter("Binary Grid Files", "*.gfb"));
             fc.setInitialDirectory(lastUsedDirectory);
 
             File file = fc.showOpenDialog(stage);
@@ -81,10 +104,7 @@ public class MenuFunctionController {
             if (file == null){
                 System.err.println("Load dialog canceled");
             } else {
-                gridFileManager.loadGrid(file.getPath());
-                gridFlowEventManager.sendEvent(new GridChangedEvent());
-                lastUsedFileName = file.getName();
-                lastUsedDirectory = file.getParentFile();
+                loadGridInBackground(file, stage);
             }
 
         } catch (Exception ex) {
@@ -92,4 +112,129 @@ public class MenuFunctionController {
         }
 
     }
+
+    // Reads the file on a background thread while a window shows the progress, the grid is only replaced
+    // on the FX thread once the whole file was read. Cancelling leaves the grid as it was.
+    private void loadGridInBackground(File file, Window owner) {
+        Task<GridFileManager.LoadedGrid> load = new Task<>() {
+            @Override
+            protected GridFileManager.LoadedGrid call() throws Exception {
+                GridFileManager.LoadedGrid loaded = gridFileManager.readGrid(file.getPath(),
+                        progress -> updateProgress(progress, 1), this::isCancelled);
+                if (loaded == null && !isCancelled()) throw new IOException("Cannot read " + file.getName());
+                return loaded;
+            }
+        };
+        Stage progressWindow = createProgressWindow("Load Grid", "Loading " + file.getName(), owner, load);
+
+        load.setOnSucceeded(e -> {
+            progressWindow.close();
+            gridFileManager.replaceGrid(load.getValue());
+            gridFlowEventManager.sendEvent(new GridReplacedEvent());
+            gridFlowEventManager.sendEvent(new GridChangedEvent());
+            lastUsedFileName = file.getName();
+            lastUsedDirectory = file.getParentFile();
+        });
+        load.setOnFailed(e -> {
+            progressWindow.close();
+            System.err.println("Load failed: " + load.getException().getMessage());
+        });
+        load.setOnCancelled(e -> {
+            progressWindow.close();
+            System.err.println("Load canceled");
+        });
+
+        Thread loadThread = new Thread(load, "Load");
+        loadThread.setDaemon(true);
+        loadThread.start();
+        progressWindow.show();
+    }
+
+    // Opens each closed breaker, switch, cutout and jumper alone on background threads and lists what would
+    // lose energy, the devices that cut off the most first. The grid is captured when the analysis starts,
+    // edits made while it runs are not part of it.
+    public void analyzeContingencies(VBox menu) {
+        Window stage = menu.getScene().getWindow();
+        ContingencyAnalyzer analyzer = new ContingencyAnalyzer(getGrid());
+        int scenarioCount = analyzer.countScenarios();
+
+        Task<List<ContingencyResult>> analysis = new Task<>() {
+            @Override
+            protected List<ContingencyResult> call() throws Exception {
+                List<ContingencyResult> results = new ArrayList<>();
+                analyzer.analyze(result -> {
+                    results.add(result);
+                    updateProgress(results.size(), scenarioCount);
+                });
+                return results;
+            }
+        };
+        Stage progressWindow = createProgressWindow("Contingency Analysis",
+                "Opening " + scenarioCount + " devices one at a time", stage, analysis);
+
+        analysis.setOnSucceeded(e -> {
+            progressWindow.close();
+            showContingencyResults(analysis.getValue(), stage);
+        });
+        analysis.setOnFailed(e -> {
+            progressWindow.close();
+            System.err.println("Contingency analysis failed: " + analysis.getException().getMessage());
+        });
+        analysis.setOnCancelled(e -> {
+            progressWindow.close();
+            System.err.println("Contingency analysis canceled");
+        });
+
+        Thread analysisThread = new Thread(analysis, "Contingency");
+        analysisThread.setDaemon(true);
+        analysisThread.start();
+        progressWindow.show();
+    }
+
+    private void showContingencyResults(List<ContingencyResult> results, Window owner) {
+        List<ContingencyResult> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparingInt((ContingencyResult result) -> result.getLostLoads().size())
+                .thenComparingInt(result -> result.getDeEnergizedWires().size())
+                .reversed());
+
+        ListView<String> list = new ListView<>();
+        for (ContingencyResult result : sorted) {
+            Closeable device = result.getOpenedDevice();
+            String name = device.getName() == null || device.getName().isEmpty() ? "unnamed" : device.getName();
+            list.getItems().add(device.getComponentType() + " " + name + ": " + result.getLostLoads().size()
+                    + " loads and " + result.getDeEnergizedWires().size() + " wires lose energy");
+        }
+        list.setPrefSize(RESULTS_WINDOW_WIDTH, RESULTS_WINDOW_HEIGHT);
+
+        VBox content = new VBox(10, new Label("Opening each closed device alone, " + results.size() + " devices"), list);
+        content.setPadding(new Insets(15));
+
+        Stage window = new Stage();
+        window.setScene(new Scene(content));
+        window.setTitle("Contingency Analysis");
+        window.initOwner(owner);
+        window.show();
+    }
+
+    private Stage createProgressWindow(String title, String message, Window owner, Task<?> task) {
+        ProgressBar progressBar = new ProgressBar();
+        progressBar.setPrefWidth(PROGRESS_WINDOW_WIDTH);
+        progressBar.progressProperty().bind(task.progressProperty());
+        Button cancelButton = new Button("Cancel");
+        cancelButton.setOnAction(e -> task.cancel());
+
+        VBox content = new VBox(10, new Label(message), progressBar, cancelButton);
+        content.setAlignment(Pos.CENTER);
+        content.setPadding(new Insets(15));
+
+        Stage window = new Stage();
+        window.setScene(new Scene(content));
+        window.setTitle(title);
+        window.initModality(Modality.APPLICATION_MODAL);
+        window.initOwner(owner);
+        window.setResizable(false);
+        // closing the window cancels the task
+        window.setOnCloseRequest(e -> task.cancel());
+        return window;
+    }
 }
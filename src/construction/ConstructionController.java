@@ -63,7 +63,8 @@ public class ConstructionController implements BaseMenuFunctions, BuildMenuFunct
     private boolean DEBUG = false;
 
 
-    public ConstructionController(Grid grid, GridFlowEventManager gridFlowEventManager, Stage stage) {
+    public ConstructionController(Grid grid, GridFlowEventManager gridFlowEventManager, SubscriptionScope sessionScope,
+                                  Stage stage) {
         // shared objects
         this.gridFlowEventManager = gridFlowEventManager;
         this.canvasFacade = new GridCanvasFacade(stage.getScene());
@@ -97,14 +98,18 @@ public class ConstructionController implements BaseMenuFunctions, BuildMenuFunct
 
         gridHistorianController = new GridHistorianController(grid, gridFlowEventManager);
         canvasExpandController = new CanvasExpandController(stage.getScene(), canvasFacade);
-        gridFlowEventManager.addListener(gridHistorianController);
-        gridFlowEventManager.addListener(ghostManagerController);
+        sessionScope.subscribe(SaveStateEvent.class, gridHistorianController::handleSaveState);
+        sessionScope.subscribe(GridReplacedEvent.class, gridHistorianController::handleGridReplaced);
+        sessionScope.subscribe(GridChangedEvent.class, ghostManagerController::handleGridChanged);
+        sessionScope.subscribe(PlacementFailedEvent.class, e -> ghostManagerController.handlePlacementError());
 
         setBuildMenuData(ToolType.INTERACT, null);
 
         initializeComponentShortcutMap();
 
         installEventHandlers();
+        // the stage outlives the session, so its handlers are taken off with the session's subscriptions
+        sessionScope.onDispose(this::removeStageEventHandlers);
     }
 
     public GridBuilderController getGridBuilderController () { return this.gridBuilderController; }
@@ -284,6 +289,11 @@ public class ConstructionController implements BaseMenuFunctions, BuildMenuFunct
         gridHistorianController.redo();
     }
 
+    @Override
+    public String getHistorySummary() {
+        return gridHistorianController.getHistorySummary();
+    }
+
     @Override
     public void delete() {
         if (DEBUG) {
@@ -299,7 +309,7 @@ public class ConstructionController implements BaseMenuFunctions, BuildMenuFunct
 
     @Override
     public void switchAccounts() {
-        gridFlowEventManager.sendApplicationOnlyEvent(new ReLoginEvent());
+        gridFlowEventManager.sendEvent(new ReLoginEvent());
     }
 
     @Override
@@ -332,6 +342,15 @@ public class ConstructionController implements BaseMenuFunctions, BuildMenuFunct
         canvasFacade.setCameraPos(tx/n, ty/n);
     }
 
+    // removes the handlers installEventHandlers put on the stage, the canvas handlers go with the canvas
+    private void removeStageEventHandlers() {
+        stage.removeEventFilter(KeyEvent.KEY_PRESSED, handleRKeyRotation);
+        stage.removeEventFilter(MouseEvent.MOUSE_PRESSED, handleMiddleMouseRotation);
+        stage.removeEventFilter(KeyEvent.KEY_PRESSED, handleToggleDefaultState);
+        stage.removeEventHandler(KeyEvent.KEY_PRESSED, handleComponentShortcut);
+        stage.removeEventFilter(KeyEvent.KEY_PRESSED, handleCtrlCKey);
+    }
+
     // gets event handlers from the sub controllers and installs them into the canvasFacade
     // event handlers are what respond to user inputs
     private void installEventHandlers() {
@@ -351,6 +370,8 @@ public class ConstructionController implements BaseMenuFunctions, BuildMenuFunct
         canvasFacade.setLockComponentEventHandler(gridBuilderController.getLockComponentEventHandler());
         canvasFacade.addCanvasEventHandler(MouseEvent.MOUSE_PRESSED, gridBuilderController.getPlaceComponentEventHandler());
         canvasFacade.addCanvasEventFilter(MouseEvent.MOUSE_PRESSED, gridBuilderController.getPlaceWireEventHandler());
+        // toggling, locking and selecting components come after placing wires, like when the icons had the handlers
+        canvasFacade.addCanvasEventFilter(MouseEvent.MOUSE_PRESSED, canvasFacade.getComponentPressedFilter());
         canvasFacade.addCanvasEventHandler(MouseEvent.MOUSE_PRESSED, gridBuilderController.getPlaceAssociationEventHandler());
 
 
@@ -362,6 +383,8 @@ public class ConstructionController implements BaseMenuFunctions, BuildMenuFunct
         canvasFacade.addCanvasEventFilter(MouseEvent.MOUSE_MOVED, ghostManagerController.getGhostMoveEventHandler());
         // Tracks when a mouse is dragging component, and visually creates the component being dragged
         canvasFacade.addCanvasEventFilter(MouseEvent.MOUSE_DRAGGED, ghostManagerController.getGhostMoveEventHandler());
+        // checks the dragged ghost against the grid, after the ghost was moved
+        canvasFacade.addCanvasEventFilter(MouseEvent.MOUSE_DRAGGED, gridBuilderController.getDragPreviewEventHandler());
 
 
         // selection events
@@ -1,6 +1,5 @@
 package construction.builder;
 
-import application.events.SaveStateEvent;
 import construction.AssociationMoveContext;
 import construction.properties.PropertiesData;
 import construction.ComponentType;
@@ -9,13 +8,12 @@ import domain.Association;
 import domain.Grid;
 import domain.components.*;
 import domain.geometry.Point;
+import javafx.geometry.Bounds;
 import javafx.scene.shape.Rectangle;
-import visualization.componentIcons.ComponentIcon;
 
 import javax.print.attribute.standard.OrientationRequested;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class GridBuilder {
 
@@ -33,7 +31,6 @@ public class GridBuilder {
 
     // Variable that keeps track of whether the component is being dragged
     private boolean isDragging = false;
-    private SaveStateEvent preDragState = null;
 
     // Variables to enable group components to keep track of their individual components
     private String peripherySourceComponent;
@@ -51,6 +48,9 @@ public class GridBuilder {
     private List<String> attachedComponentIDs = new ArrayList<String>();
     private Wire dragWire;
 
+    // the components picked up by the current drag, they stay in the grid until the drag is released
+    private List<Component> draggedComponents = new ArrayList<>();
+
 
     public GridBuilder(Grid grid, PropertiesData properties) {
         this.grid = grid;
@@ -155,6 +155,7 @@ public class GridBuilder {
             grid.addComponent(inWire);
         }
         else if (conflictComponent instanceof Wire){
+            grid.recordChange(conflictComponent);
             inWire = (Wire) conflictComponent;
             device.connectInWire(inWire);
             inWire.connect(device);
@@ -191,6 +192,7 @@ public class GridBuilder {
             grid.addComponent(outWire);
         }
         else if (conflictComponent instanceof Wire){ // there is a wire conflict, connect this wire
+            grid.recordChange(conflictComponent);
             outWire = (Wire) conflictComponent;
             device.connectOutWire(outWire);
             outWire.connect(device);
@@ -236,6 +238,7 @@ public class GridBuilder {
                     grid.addComponent(outWire);
                 }
                 else if (conflictComponent instanceof Wire){ // there is a wire conflict, connect this wire
+                    grid.recordChange(conflictComponent);
                     outWire = (Wire) conflictComponent;
                     powerSource.connectWire(outWire);
                     outWire.connect(powerSource);
@@ -262,6 +265,7 @@ public class GridBuilder {
                     grid.addComponent(topWire);
                 }
                 else if (conflictComponent instanceof Wire){
+                    grid.recordChange(conflictComponent);
                     topWire = (Wire) conflictComponent;
                     turbine.connectTopOutput(topWire);
                     topWire.connect(turbine);
@@ -281,6 +285,7 @@ public class GridBuilder {
                     grid.addComponent(bottomWire);
                 }
                 else if (conflictComponent instanceof Wire){ // there is a wire conflict, connect this wire
+                    grid.recordChange(conflictComponent);
                     bottomWire = (Wire) conflictComponent;
                     turbine.connectBottomOutput(bottomWire);
                     bottomWire.connect(turbine);
@@ -344,6 +349,7 @@ public class GridBuilder {
                     grid.addComponent(outWire);
                 }
                 else if (conflictComponent instanceof Wire){ // there is a wire conflict, connect this wire
+                    grid.recordChange(conflictComponent);
                     outWire = (Wire) conflictComponent;
                     ats.connectWire(outWire);
                     outWire.connect(ats);
@@ -430,6 +436,7 @@ public class GridBuilder {
             if(shouldConnect) {
                 // wires overlapped, connect to them
                 for(Component conflictingComponent : wireConflicts) {
+                    grid.recordChange(conflictingComponent);
                     if(conflictingComponent instanceof Wire)
                         ((Wire) conflictingComponent).connect(wire);
                     wire.connect(conflictingComponent);
@@ -457,6 +464,7 @@ public class GridBuilder {
                     wire.addBridgePoint(bridgePoint);
                 }
                 for(Wire connectComponent : connectComponents) {
+                    grid.recordChange(connectComponent);
                     wire.connect(connectComponent);
                     connectComponent.connect(wire);
                 }
@@ -535,19 +543,13 @@ public class GridBuilder {
 
         Rectangle currentComponentRect = component.getComponentIcon().getFittingRect();
 
-        List<ComponentIcon> existingComponents = grid.getComponents().stream()
-                .map(comp -> comp.getComponentIcon()).collect(Collectors.toList());
-
-        for(ComponentIcon comp : existingComponents) {
-            if (currentComponentRect.getBoundsInParent().intersects(comp.getFittingRect().getBoundsInParent())) {
-                Component conflictingComponent = grid.getComponent(comp.getID());
-                if(conflictingComponent instanceof Wire) {
-                    wireConflicts.add(conflictingComponent);
-                }
-                else {
-                    comp.showError();
-                    nonWireConflicts = nonWireConflicts + 1;
-                }
+        for(Component conflictingComponent : grid.getComponentsIntersecting(currentComponentRect)) {
+            if(conflictingComponent instanceof Wire) {
+                wireConflicts.add(conflictingComponent);
+            }
+            else {
+                conflictingComponent.getComponentIcon().showError();
+                nonWireConflicts = nonWireConflicts + 1;
             }
         }
         if (nonWireConflicts > 0) return null;
@@ -560,14 +562,9 @@ public class GridBuilder {
 
         Rectangle currentComponentRect = component.getComponentIcon().getFittingRect();
 
-        List<ComponentIcon> existingComponents = grid.getComponents().stream()
-                .map(comp -> comp.getComponentIcon()).collect(Collectors.toList());
-
-        for(ComponentIcon comp : existingComponents) {
-            if (currentComponentRect.getBoundsInParent().intersects(comp.getFittingRect().getBoundsInParent())) {
-                comp.showError();
-                conflicts = conflicts + 1;
-            }
+        for(Component conflictingComponent : grid.getComponentsIntersecting(currentComponentRect)) {
+            conflictingComponent.getComponentIcon().showError();
+            conflicts = conflicts + 1;
         }
         if (DEBUG) {
             System.out.println("Conflicts found in src/construction/builder/GridBuilder/verifyPlacement: " + conflicts);
@@ -579,16 +576,8 @@ public class GridBuilder {
     public Component verifySingleWirePosition(Component component) {
         Rectangle currentComponentRect = component.getComponentIcon().getFittingRect();
 
-        List<ComponentIcon> existingComponents = grid.getComponents().stream()
-                .map(comp -> comp.getComponentIcon()).collect(Collectors.toList());
-
-        for(ComponentIcon compIcon : existingComponents) {
-            if (currentComponentRect.getBoundsInParent().intersects(compIcon.getFittingRect().getBoundsInParent())) {
-                Component conflictingComponent = grid.getComponent(compIcon.getID());
-                return conflictingComponent;
-            }
-        }
-        return null;
+        List<Component> conflictingComponents = grid.getComponentsIntersecting(currentComponentRect);
+        return conflictingComponents.isEmpty() ? null : conflictingComponents.get(0);
     }
 
     public void placeAssociation(Point start, Point end) {
@@ -671,6 +660,24 @@ public class GridBuilder {
     }
 
 
+    // returns the component and its tandem breaker, toggling or locking one of them can change the other
+    public List<Component> getInteractionGroup(String componentId) {
+        Component component = grid.getComponent(componentId);
+        if (component == null) return List.of();
+
+        if (component instanceof Breaker && ((Breaker) component).hasTandem()) {
+            Component tandemComponent = grid.getComponent(((Breaker) component).getTandemID());
+            if (tandemComponent != null) return List.of(component, tandemComponent);
+        }
+        return List.of(component);
+    }
+
+    // returns the components placed since the grid held the given number of components
+    public List<Component> getComponentsPlacedSince(int componentCount) {
+        List<Component> components = grid.getComponents();
+        return new ArrayList<>(components.subList(componentCount, components.size()));
+    }
+
     // created by Ali to determine if a group placement is occuring
 
     private boolean isGroup(ComponentType componentType) {
@@ -721,6 +728,48 @@ public class GridBuilder {
 
 
     //Drag functions
+
+    // Starts a drag transaction. The dragged components stay in the grid and are only hidden while the ghost
+    // previews their new position, so the grid is changed once when the drag is released.
+    // Returns false if a component could not be removed from the grid, then nothing is dragged.
+    public boolean beginDrag(List<Component> components) {
+        for (Component component : components) {
+            if (!component.isDeletable()) return false;
+        }
+        draggedComponents.addAll(components);
+        draggedComponents.forEach(component -> setHidden(component, true));
+        isDragging = true;
+        return true;
+    }
+
+    // true if nothing but the dragged components is in the way of the given bounds
+    // wires only conflict with non-wires, crossing or joining other wires is decided when the wire is placed
+    public boolean isDragPositionFree(Bounds bounds, boolean wire) {
+        for (Component component : grid.getComponentsIntersecting(bounds)) {
+            if (draggedComponents.contains(component)) continue;
+            if (wire && component instanceof Wire) continue;
+            return false;
+        }
+        return true;
+    }
+
+    // removes the dragged components from the grid, done in the same edit that places them at the new position
+    public void removeDraggedComponents() {
+        draggedComponents.forEach(component -> grid.deleteSelectedItem(component.getId().toString()));
+    }
+
+    // ends the drag, components the drag did not move are shown again
+    public void endDrag() {
+        draggedComponents.forEach(component -> setHidden(component, false));
+        draggedComponents.clear();
+        isDragging = false;
+    }
+
+    private void setHidden(Component component, boolean hidden) {
+        component.getComponentIcon().getComponentNode().setVisible(!hidden);
+        component.getComponentIcon().getEnergyOutlineNodes().setVisible(!hidden);
+    }
+
     public void setIsDragging(boolean drag)
     {
         isDragging=drag;
@@ -730,15 +779,6 @@ public class GridBuilder {
         return isDragging;
     }
 
-    public void setPreDragSaveState(SaveStateEvent e)
-    {
-        preDragState = e;
-    }
-    public SaveStateEvent getPreDragSaveState()
-    {
-        return preDragState;
-    }
-
     public Point getDragWireBeginPoint() {
         return dragWireBeginPoint;
     }
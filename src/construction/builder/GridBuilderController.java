@@ -4,6 +4,7 @@ import application.events.*;
 import construction.*;
 import construction.buildMenu.BuildMenuData;
 import construction.canvas.GridCanvasFacade;
+import construction.ghosts.GhostManager;
 import construction.ghosts.GhostManagerController;
 import construction.history.GridMemento;
 import construction.properties.objectData.ObjectData;
@@ -16,6 +17,7 @@ import domain.components.Component;
 import domain.components.Wire;
 import domain.geometry.Point;
 import javafx.event.EventHandler;
+import javafx.geometry.Bounds;
 import javafx.scene.Cursor;
 import javafx.scene.Node;
 import javafx.scene.input.MouseEvent;
@@ -50,6 +52,10 @@ public class GridBuilderController {
     // To be able to copy components.
     private GhostManagerController ghostManagerController;
 
+    // the last position a drag was checked at, and whether the dragged components could be placed there
+    private Point lastDragPoint = null;
+    private boolean dragPositionBlocked = false;
+
     public GridBuilderController(Grid grid, GridFlowEventManager gridFlowEventManager,
                                  DoubleClickPlacementContext doubleClickPlacementContext, BuildMenuData buildMenuData,
                                  PropertiesData propertiesData, GridCanvasFacade canvasFacade, GhostManagerController GMC) {
@@ -79,7 +85,9 @@ public class GridBuilderController {
         tandems.get(0).setTandemID(tandems.get(1).getId().toString());
         tandems.get(1).setTandemID(tandems.get(0).getId().toString());
 
-        gridFlowEventManager.sendEvent(new GridChangedEvent());
+        GridChangedEvent e = new GridChangedEvent();
+        e.changedComponents = List.of(tandems.get(0), tandems.get(1));
+        gridFlowEventManager.sendEvent(e);
     }
 
 
@@ -109,24 +117,30 @@ public class GridBuilderController {
         br.setTandemID("");
     }
 
-    public boolean isBreaker(UUID ID) {
-        Component comp = grid.getComponent(ID.toString());
-        return comp instanceof Breaker;
+    // puts back what a failed drag removed and placed, the grid is then as it was before the drag
+    private void rollBack(GridMemento dragEdit) {
+        if (dragEdit == null) return;
+        grid.restore(dragEdit);
+        gridFlowEventManager.sendEvent(new GridChangedEvent());
     }
 
-    public void placeEntireWire(Point eventPoint)
-    {
+    // ends a drag whether it was placed or not and goes back to selecting
+    private void endDrag() {
+        model.endDrag();
+        ghostManagerController.getGhostModel().showGhostBlocked(false);
+        lastDragPoint = null;
+        dragPositionBlocked = false;
+        buildData.toolType = ToolType.SELECT;
+        ghostManagerController.buildMenuDataChanged();
+    }
+
+    // the start and end of a wire dragged by its middle, if it was released at the given point
+    private List<Point> getEntireWireEnds(Point eventPoint) {
         Wire w = model.getDragWire();
-        System.out.println("PLACE ENTIRE WIRE");
         Point refPoint = model.getDragWireBeginPoint();
         Point startPoint;
         Point endPoint;
 
-        if(w == null){
-            System.out.println("Null wire!");
-            return;
-        }
-
         if(w.getStart().getX() == w.getEnd().getX())
         {
             startPoint = new Point(eventPoint.getX(), eventPoint.getY() - (refPoint.getY() - w.getStart().getY()));
@@ -138,27 +152,51 @@ public class GridBuilderController {
             endPoint =new Point(eventPoint.getX() - (refPoint.getX() - w.getEnd().getX()), eventPoint.getY());
         }
 
-
-        doubleClickPlacementContext.beginPoint = Point.nearestCoordinate(startPoint.getX(), startPoint.getY());
-        Point lockedEndPoint = endPoint.clampPerpendicular(doubleClickPlacementContext.beginPoint);
+        Point beginPoint = Point.nearestCoordinate(startPoint.getX(), startPoint.getY());
+        Point lockedEndPoint = endPoint.clampPerpendicular(beginPoint);
         lockedEndPoint = Point.nearestCoordinate(lockedEndPoint.getX(), lockedEndPoint.getY());
-        GridMemento prePlaceWireMemento = grid.makeSnapshot(); // create a snapshot of the grid before the wire is placed
-        boolean res = model.placeWire(doubleClickPlacementContext.beginPoint, lockedEndPoint, false);
-        if (res) {
-            // if the wire was successfully placed
-            if(!model.getIsDragging()) gridFlowEventManager.sendEvent(new SaveStateEvent(prePlaceWireMemento)); // save the snapshot to the undo history
-            GridChangedEvent e = new GridChangedEvent();
-            e.toolCausingChange = ToolType.WIRE;
-            gridFlowEventManager.sendEvent(e);
-        } else {
-            if(model.getIsDragging()) gridFlowEventManager.sendEvent(new InternalUndoEvent());
-            gridFlowEventManager.sendEvent(new PlacementFailedEvent());
+        return List.of(beginPoint, lockedEndPoint);
+    }
+
+    public boolean isBreaker(UUID ID) {
+        Component comp = grid.getComponent(ID);
+        return comp instanceof Breaker;
+    }
+
+    public void placeEntireWire(Point eventPoint)
+    {
+        Wire w = model.getDragWire();
+        System.out.println("PLACE ENTIRE WIRE");
+
+        if(w == null){
+            System.out.println("Null wire!");
+            return;
         }
-        if (model.getIsDragging()) {
-            buildData.toolType = ToolType.SELECT;
-            ghostManagerController.buildMenuDataChanged();
-            model.setIsDragging(false);
+
+        List<Point> ends = getEntireWireEnds(eventPoint);
+        doubleClickPlacementContext.beginPoint = ends.get(0);
+        Point lockedEndPoint = ends.get(1);
+        if (dragPositionBlocked) {
+            // the drag is dropped before anything in the grid was changed
+            gridFlowEventManager.sendEvent(new PlacementFailedEvent());
+        } else {
+            // the removal of the dragged wire and its placement are recorded as one edit
+            grid.beginEdit();
+            model.removeDraggedComponents();
+            boolean res = model.placeWire(doubleClickPlacementContext.beginPoint, lockedEndPoint, false);
+            GridMemento placeWireEdit = grid.endEdit();
+            if (res) {
+                // if the wire was successfully placed
+                gridFlowEventManager.sendEvent(new SaveStateEvent(placeWireEdit)); // save the edit to the undo history
+                GridChangedEvent e = new GridChangedEvent();
+                e.toolCausingChange = ToolType.WIRE;
+                gridFlowEventManager.sendEvent(e);
+            } else {
+                rollBack(placeWireEdit);
+                gridFlowEventManager.sendEvent(new PlacementFailedEvent());
+            }
         }
+        endDrag();
 
         model.setDragEntireWire(false);
     }
@@ -180,6 +218,9 @@ public class GridBuilderController {
             else{
                 if(model.getDragEntireWire()){
                     placeEntireWire(new Point(event.getX(), event.getY()));
+                    doubleClickPlacementContext.placing = false;
+                    event.consume();
+                    return;
                 }
             }
 
@@ -191,22 +232,35 @@ public class GridBuilderController {
             Point endPoint = Point.nearestCoordinate(event.getX(), event.getY());
             Point lockedEndPoint = endPoint.clampPerpendicular(doubleClickPlacementContext.beginPoint);
             boolean ctrlPressed = event.isControlDown();
-            GridMemento prePlaceWireMemento = grid.makeSnapshot(); // create a snapshot of the grid before the wire is placed
+            if (model.getIsDragging() && dragPositionBlocked) {
+                // the drag is dropped before anything in the grid was changed
+                gridFlowEventManager.sendEvent(new PlacementFailedEvent());
+                endDrag();
+                event.consume();
+                return;
+            }
+            grid.beginEdit();
+            // a drag removes the dragged wire in the same edit, so it is undone with the placement
+            if (model.getIsDragging()) model.removeDraggedComponents();
+            int prePlaceComponentCount = grid.getComponents().size();
             boolean res = model.placeWire(doubleClickPlacementContext.beginPoint, lockedEndPoint, ctrlPressed);
+            GridMemento placeWireEdit = grid.endEdit();
             if (res) {
                 // if the wire was successfully placed
-                if(!model.getIsDragging()) gridFlowEventManager.sendEvent(new SaveStateEvent(prePlaceWireMemento)); // save the snapshot to the undo history
+                gridFlowEventManager.sendEvent(new SaveStateEvent(placeWireEdit)); // save the edit to the undo history
                 GridChangedEvent e = new GridChangedEvent();
                 e.toolCausingChange = ToolType.WIRE;
+                if(!model.getIsDragging()) {
+                    e.changedComponents = model.getComponentsPlacedSince(prePlaceComponentCount);
+                    e.removedComponents = grid.getRemovedComponents();
+                }
                 gridFlowEventManager.sendEvent(e);
             } else {
-                if(model.getIsDragging()) gridFlowEventManager.sendEvent(new InternalUndoEvent());
+                if(model.getIsDragging()) rollBack(placeWireEdit);
                 gridFlowEventManager.sendEvent(new PlacementFailedEvent());
             }
             if (model.getIsDragging()) {
-                buildData.toolType = ToolType.SELECT;
-                ghostManagerController.buildMenuDataChanged();
-                model.setIsDragging(false);
+                endDrag();
             }
 
         } else { // begin placement
@@ -226,8 +280,9 @@ public class GridBuilderController {
         if (doubleClickPlacementContext.placing) { // end placement
             doubleClickPlacementContext.placing = false;
             Point endPoint = Point.nearestCoordinate(event.getX(), event.getY());
-            gridFlowEventManager.sendEvent(new SaveStateEvent(grid.makeSnapshot())); // save the state of the grid before change
+            grid.beginEdit();
             model.placeAssociation(doubleClickPlacementContext.beginPoint, endPoint);
+            gridFlowEventManager.sendEvent(new SaveStateEvent(grid.endEdit())); // save the edit to the undo history
             GridChangedEvent e = new GridChangedEvent();
             e.toolCausingChange = ToolType.ASSOCIATION;
             gridFlowEventManager.sendEvent(e);
@@ -245,7 +300,9 @@ public class GridBuilderController {
 
         String targetId = ((Node)event.getTarget()).getId();
         model.toggleComponent(targetId);
-        gridFlowEventManager.sendEvent(new GridChangedEvent()); // toggling components does not create a snapshot to save processing power
+        GridChangedEvent e = new GridChangedEvent();
+        e.changedComponents = model.getInteractionGroup(targetId);
+        gridFlowEventManager.sendEvent(e); // toggling components does not create a snapshot to save processing power
 
         event.consume();
 
@@ -257,7 +314,9 @@ public class GridBuilderController {
 
         String targetId = ((Node)event.getTarget()).getId();
         model.lockComponent(targetId);
-        gridFlowEventManager.sendEvent(new GridChangedEvent());
+        GridChangedEvent e = new GridChangedEvent();
+        e.changedComponents = model.getInteractionGroup(targetId);
+        gridFlowEventManager.sendEvent(e);
 
         event.consume();
     };
@@ -281,16 +340,33 @@ public class GridBuilderController {
         if (DEBUG) {
             System.out.println("This is coordPoint: " + coordPoint);
         }
-        SaveStateEvent e = new SaveStateEvent(grid.makeSnapshot()); // create a snapshot of the grid before placing component
+        if (model.getIsDragging() && dragPositionBlocked) {
+            // the drag is dropped before anything in the grid was changed
+            gridFlowEventManager.sendEvent(new PlacementFailedEvent());
+            endDrag();
+            event.consume();
+            return;
+        }
+        grid.beginEdit();
+        // a drag removes the dragged component in the same edit, so it is undone with the placement
+        if (model.getIsDragging()) model.removeDraggedComponents();
+        int prePlaceComponentCount = grid.getComponents().size();
         boolean res = model.placeComponent(coordPoint, buildData.componentType);
+        GridMemento placeEdit = grid.endEdit();
 
         if (res) {
-            if(!model.getIsDragging()) gridFlowEventManager.sendEvent(e); // save the pre place grid state
-            gridFlowEventManager.sendEvent(new GridChangedEvent());
+            gridFlowEventManager.sendEvent(new SaveStateEvent(placeEdit)); // save the edit to the undo history
+            GridChangedEvent changedEvent = new GridChangedEvent();
+            // a drag also removed the original component, so only plain placements can be simulated locally
+            if(!model.getIsDragging()) {
+                changedEvent.changedComponents = model.getComponentsPlacedSince(prePlaceComponentCount);
+                changedEvent.removedComponents = grid.getRemovedComponents();
+            }
+            gridFlowEventManager.sendEvent(changedEvent);
         } else {
             gridFlowEventManager.sendEvent(new PlacementFailedEvent());
-            if(model.getIsDragging()) gridFlowEventManager.sendEvent(new InternalUndoEvent());
-            gridFlowEventManager.sendEvent(new GridChangedEvent());
+            if(model.getIsDragging()) rollBack(placeEdit);
+            else gridFlowEventManager.sendEvent(new GridChangedEvent());
         }
 
         if (model.getIsCopying()) {
@@ -299,14 +375,35 @@ public class GridBuilderController {
             model.setIsCopying(false);
         }
         if (model.getIsDragging()) {
-            buildData.toolType = ToolType.SELECT;
-            ghostManagerController.buildMenuDataChanged();
-            model.setIsDragging(false);
+            endDrag();
         }
 
         event.consume();
     };
 
+    // Checks where the dragged components would go against the grid's spatial index as the mouse moves.
+    // Only the ghost moves, the grid is changed once when the drag is released, so a drag costs no redraws
+    // or simulation until then. Runs after the ghost was moved.
+    private final EventHandler<MouseEvent> dragPreviewEventHandler = event -> {
+        if (!model.getIsDragging()) return;
+
+        GhostManager ghostModel = ghostManagerController.getGhostModel();
+        Point dragPoint = Point.nearestCoordinate(event.getX(), event.getY());
+        List<Point> wireEnds = null;
+        if (model.getDragEntireWire()) {
+            wireEnds = getEntireWireEnds(new Point(event.getX(), event.getY()));
+            dragPoint = wireEnds.get(0);
+        }
+        if (lastDragPoint != null && dragPoint.equals(lastDragPoint)) return;
+        lastDragPoint = dragPoint;
+
+        if (wireEnds != null) ghostModel.previewWire(wireEnds.get(0), wireEnds.get(1));
+        Bounds ghostBounds = ghostModel.getGhostBounds();
+        if (ghostBounds == null) return;
+        dragPositionBlocked = !model.isDragPositionFree(ghostBounds, buildData.toolType == ToolType.WIRE);
+        ghostModel.showGhostBlocked(dragPositionBlocked);
+    };
+
     private final EventHandler<MouseEvent> beginResizeAssociationEventHandler = event -> {
         if (buildData.toolType != ToolType.ASSOCIATION) return;
         if (!event.isPrimaryButtonDown()) return;
@@ -478,6 +575,10 @@ public class GridBuilderController {
     };
 
 
+    public EventHandler<MouseEvent> getDragPreviewEventHandler() {
+        return dragPreviewEventHandler;
+    }
+
     public EventHandler<MouseEvent> getPlaceWireEventHandler() {
         return placeWireEventHandler;
     }
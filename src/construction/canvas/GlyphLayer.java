@@ -0,0 +1,67 @@
+package construction.canvas;
+
+import application.Globals;
+import javafx.geometry.Bounds;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Scale;
+import javafx.scene.transform.Translate;
+import visualization.componentIcons.ComponentIcon;
+import visualization.componentIcons.WireIcon;
+
+import java.util.Collection;
+
+// Draws the components as simple glyphs on one canvas when zoomed out too far to see their details.
+// The canvas covers only the area it was last drawn for, at the resolution of the zoom it was drawn at.
+class GlyphLayer extends Canvas {
+
+    private static final Color GLYPH_COLOR = Color.BLACK;
+    private static final Color ENERGY_COLOR = Color.YELLOW;
+
+    GlyphLayer() {
+        setMouseTransparent(true);
+        setManaged(false);
+    }
+
+    // area is in canvas coordinates, scale is the canvas scale so one pixel here is one pixel on screen
+    void draw(Bounds area, double scale, Collection<ComponentIcon> icons) {
+        setWidth(Math.ceil(area.getWidth() * scale));
+        setHeight(Math.ceil(area.getHeight() * scale));
+        getTransforms().setAll(new Translate(area.getMinX(), area.getMinY()), new Scale(1 / scale, 1 / scale));
+
+        GraphicsContext gc = getGraphicsContext2D();
+        gc.setTransform(1, 0, 0, 1, 0, 0);
+        gc.clearRect(0, 0, getWidth(), getHeight());
+        gc.setTransform(scale, 0, 0, scale, -area.getMinX() * scale, -area.getMinY() * scale);
+
+        // at least a pixel wide, so thin wires do not disappear
+        double minSize = 1 / scale;
+        gc.setLineWidth(minSize);
+        for (ComponentIcon icon : icons) {
+            Bounds bounds = icon.getBoundingRect().getBoundsInParent();
+            double width = Math.max(bounds.getWidth(), minSize);
+            double height = Math.max(bounds.getHeight(), minSize);
+
+            if (icon.isEnergized()) {
+                double outline = Math.max(Globals.ENERGY_STROKE_WIDTH, 2 * minSize);
+                gc.setFill(ENERGY_COLOR);
+                gc.fillRect(bounds.getMinX() - outline, bounds.getMinY() - outline, width + 2 * outline, height + 2 * outline);
+            }
+
+            // wires are lines, so their rect is filled, other components are outlined
+            if (icon instanceof WireIcon) {
+                gc.setFill(GLYPH_COLOR);
+                gc.fillRect(bounds.getMinX(), bounds.getMinY(), width, height);
+            } else {
+                gc.setStroke(GLYPH_COLOR);
+                gc.strokeRect(bounds.getMinX(), bounds.getMinY(), width, height);
+            }
+        }
+    }
+
+    void clear() {
+        setWidth(0);
+        setHeight(0);
+    }
+}
@@ -6,9 +6,12 @@ import javafx.beans.property.SimpleDoubleProperty;
 import javafx.scene.Group;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
-import javafx.scene.shape.Line;
+import javafx.scene.paint.ImagePattern;
+import javafx.scene.shape.Rectangle;
 
 public class GridCanvas extends Pane {
 
@@ -26,10 +29,12 @@ public class GridCanvas extends Pane {
     public final Group backgroundGrid = new Group();
     public final Group associationGroup = new Group();
     public final ImageView imageView = new ImageView();
+    // the components when zoomed out too far to show their icons
+    final GlyphLayer glyphLayer = new GlyphLayer();
 
     public GridCanvas() {
         // the order the groups are added to the canvas is the layer order (behind to front)
-        getChildren().addAll(imageView, backgroundGrid, energyOutlineGroup, componentGroup,
+        getChildren().addAll(imageView, backgroundGrid, glyphLayer, energyOutlineGroup, componentGroup,
                 associationGroup, boundingRectGroup, overlayGroup);
         addBackgroundGrid();
         if (Globals.flag) {
@@ -57,24 +62,32 @@ public class GridCanvas extends Pane {
         setTranslateY(getTranslateY() - y);
     }
 
+    // the grid is one rectangle as big as the canvas, filled with a repeating image of one grid cell,
+    // so it does not take more nodes when the canvas grows
     private void addBackgroundGrid() {
-        double width = unitWidth * Globals.UNIT;
-        double height = unitHeight * Globals.UNIT;
-        // vertical lines
-        for (int i = 0; i < width; i += Globals.UNIT) {
-            Line gridLine = new Line(i, 0, i, height);
-            gridLine.setStroke(Color.LIGHTGRAY);
-            gridLine.setOpacity(0.5);
-            backgroundGrid.getChildren().add(gridLine);
-        }
+        Rectangle gridRect = new Rectangle();
+        gridRect.widthProperty().bind(prefWidthProperty());
+        gridRect.heightProperty().bind(prefHeightProperty());
+        gridRect.setFill(new ImagePattern(createGridCell(), 0, 0, Globals.UNIT, Globals.UNIT, false));
+        gridRect.setMouseTransparent(true);
+        backgroundGrid.getChildren().add(gridRect);
+    }
+
+    // one unit with its grid lines along the left and top edge
+    private Image createGridCell() {
+        int size = (int) Globals.UNIT;
+        Color line = Color.LIGHTGRAY.deriveColor(0, 1, 1, 0.5);
+        // where the lines cross they overlap
+        Color crossing = Color.LIGHTGRAY.deriveColor(0, 1, 1, 0.75);
 
-        // horizontal lines
-        for (int i = 0; i < height; i += Globals.UNIT) {
-            Line gridLine = new Line(0, i, width, i);
-            gridLine.setStroke(Color.LIGHTGRAY);
-            gridLine.setOpacity(0.5);
-            backgroundGrid.getChildren().add(gridLine);
+        WritableImage cell = new WritableImage(size, size);
+        PixelWriter writer = cell.getPixelWriter();
+        for (int i = 1; i < size; i++) {
+            writer.setColor(i, 0, line);
+            writer.setColor(0, i, line);
         }
+        writer.setColor(0, 0, crossing);
+        return cell;
     }
 
     private void imageAssets() {
@@ -4,23 +4,29 @@ import domain.geometry.Point;
 import javafx.event.EventHandler;
 import javafx.event.EventType;
 import javafx.scene.Cursor;
-import javafx.scene.Group;
 import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.input.ScrollEvent;
-import javafx.scene.shape.Circle;
-import javafx.scene.shape.Rectangle;
-import javafx.scene.text.Text;
 import visualization.componentIcons.AssociationIcon;
 import visualization.componentIcons.ComponentIcon;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
 public class GridCanvasFacade {
 
     // this is the master's baby. it adds nodes to and removes nodes from the canvas.
     private GridCanvas canvas;
+    // attaches only the component icons near the view to the canvas
+    private ViewportCuller culler;
 
     private Scene scene;
+    // the association icon on the canvas for each association group
+    private final Map<Node, AssociationIcon> associationIcons = new HashMap<>();
 
     // Component Event Handlers
     private EventHandler<MouseEvent> toggleComponentEventHandler;
@@ -53,6 +59,7 @@ public class GridCanvasFacade {
 
     private void createCanvas() {
         canvas = new GridCanvas();
+        culler = new ViewportCuller(canvas, scene);
         centerCanvas();
 
         // canvas events
@@ -63,8 +70,112 @@ public class GridCanvasFacade {
         canvas.addEventHandler(MouseEvent.MOUSE_DRAGGED, sceneGestures.getOnPanEventHandler());
         canvas.addEventHandler(MouseEvent.MOUSE_RELEASED, sceneGestures.getEndPanEventHandler());
         canvas.addEventFilter(ScrollEvent.ANY, sceneGestures.getOnScrollEventHandler());
+
+        // the icons have no handlers of their own, the canvas finds the icon an event is for and passes it on
+        // presses on components are filtered by getComponentPressedFilter, installed with the construction filters
+        canvas.associationGroup.addEventHandler(MouseEvent.MOUSE_PRESSED, associationPressedHandler);
+        canvas.associationGroup.addEventHandler(MouseEvent.MOUSE_DRAGGED, associationDraggedHandler);
+        canvas.associationGroup.addEventHandler(MouseEvent.MOUSE_ENTERED_TARGET, associationEnteredHandler);
+        canvas.associationGroup.addEventHandler(MouseEvent.MOUSE_EXITED_TARGET, associationExitedHandler);
+    }
+
+    // Passes a press on a component to the component handlers as if it was on the component's bounding rect.
+    // The component is found in the culler's index, so this also works for icons that are not attached.
+    // Presses picked by a node in front of the components, like the ghost or an association, are not theirs.
+    private final EventHandler<MouseEvent> componentPressedFilter = event -> {
+        if (event.isConsumed() || !isOnComponentLayer(event.getPickResult().getIntersectedNode())) return;
+        ComponentIcon icon = culler.getIconAt(event.getX(), event.getY());
+        if (icon == null) return;
+
+        MouseEvent iconEvent = event.copyFor(canvas, icon.getBoundingRect());
+        toggleComponentEventHandler.handle(iconEvent);
+        lockComponentEventHandler.handle(iconEvent);
+        selectSingleComponentHandler.handle(iconEvent);
+        if (iconEvent.isConsumed()) event.consume();
+    };
+
+    // a bounding rect, or the canvas itself when the icon under the mouse is not attached
+    private boolean isOnComponentLayer(Node picked) {
+        if (picked == null || picked == canvas || picked == canvas.imageView) return true;
+        for (Node node = picked; node != null; node = node.getParent()) {
+            if (node == canvas.boundingRectGroup) return true;
+        }
+        return false;
     }
 
+    private final EventHandler<MouseEvent> associationPressedHandler = event -> {
+        Node target = (Node) event.getTarget();
+        AssociationIcon icon = associationIcons.get(target.getParent());
+        if (icon == null) return;
+
+        if (target == icon.getRect()) {
+            // prevents associations from being made inside an association
+            consumeAssociationClicksHandler.handle(event);
+        } else if (icon.getHandles().contains(target)) {
+            beginResizeAssociationHandler.handle(event);
+        } else if (target == icon.getText()) {
+            beginAssociationTextDragHandler.handle(event);
+        }
+    };
+
+    // a drag goes to the node the press was on
+    private final EventHandler<MouseEvent> associationDraggedHandler = event -> {
+        Node target = (Node) event.getTarget();
+        AssociationIcon icon = associationIcons.get(target.getParent());
+        if (icon == null) return;
+
+        if (target == icon.getResizeHandleNW()) {
+            resizeAssociationNWHandler.handle(event);
+        } else if (target == icon.getResizeHandleSE()) {
+            resizeAssociationSEHandler.handle(event);
+        } else if (target == icon.getResizeHandleNE()) {
+            resizeAssociationNEHandler.handle(event);
+        } else if (target == icon.getResizeHandleSW()) {
+            resizeAssociationSWHandler.handle(event);
+        } else if (target == icon.getText()) {
+            dragAssociationTextHandler.handle(event);
+        }
+    };
+
+    private final EventHandler<MouseEvent> associationEnteredHandler = event -> {
+        Node target = (Node) event.getTarget();
+        if (associationIcons.containsKey(target)) {
+            // disables the ghost when hovering over an association
+            beginHoverAssociationHandler.handle(event);
+            return;
+        }
+        AssociationIcon icon = associationIcons.get(target.getParent());
+        if (icon == null) return;
+
+        if (target == icon.getText()) {
+            showMoveCursorOnTextHoverHandler.handle(event);
+        } else if (target == icon.getResizeHandleNW()) {
+            showHandleCursor(target, Cursor.NW_RESIZE);
+        } else if (target == icon.getResizeHandleSE()) {
+            showHandleCursor(target, Cursor.SE_RESIZE);
+        } else if (target == icon.getResizeHandleNE()) {
+            showHandleCursor(target, Cursor.NE_RESIZE);
+        } else if (target == icon.getResizeHandleSW()) {
+            showHandleCursor(target, Cursor.SW_RESIZE);
+        }
+    };
+
+    private final EventHandler<MouseEvent> associationExitedHandler = event -> {
+        Node target = (Node) event.getTarget();
+        if (associationIcons.containsKey(target)) {
+            endHoverAssociationHandler.handle(event);
+            return;
+        }
+        AssociationIcon icon = associationIcons.get(target.getParent());
+        if (icon == null) return;
+
+        if (target == icon.getText()) {
+            showDefaultCursorOnLeaveTextHoverHandler.handle(event);
+        } else if (icon.getHandles().contains(target)) {
+            canvas.setCursor(Cursor.DEFAULT);
+        }
+    };
+
     public void centerCanvas() {
         setCameraPos((canvas.getPrefWidth()/2) / canvas.getScale(), (canvas.getPrefHeight()/2) / canvas.getScale());
     }
@@ -86,17 +197,23 @@ public class GridCanvasFacade {
     }
 
     public void addComponentIcon(ComponentIcon icon) {
-        Group componentNode = icon.getComponentNode();
-        Group energyOutlineNodes = icon.getEnergyOutlineNodes();
-        Rectangle boundingRect = icon.getBoundingRect();
-        boundingRect.addEventHandler(MouseEvent.MOUSE_PRESSED, toggleComponentEventHandler);
-        boundingRect.addEventHandler(MouseEvent.MOUSE_PRESSED, lockComponentEventHandler);
-        boundingRect.addEventHandler(MouseEvent.MOUSE_PRESSED, selectSingleComponentHandler);
+        culler.add(icon);
+    }
+
+    // puts a new icon of a component where its old icon was, so the drawing order does not change
+    public void replaceComponentIcon(ComponentIcon oldIcon, ComponentIcon newIcon) {
+        culler.replace(oldIcon, newIcon);
+    }
+
+    // takes the icons off the canvas in one change per group
+    public void removeComponentIcons(Collection<ComponentIcon> icons) {
+        if (icons.isEmpty()) return;
+        culler.remove(icons);
+    }
 
-        canvas.componentGroup.getChildren().add(componentNode);
-        canvas.energyOutlineGroup.getChildren().add(energyOutlineNodes);
-        canvas.boundingRectGroup.getChildren().add(boundingRect);
-        canvas.boundingRectGroup.getChildren().add(icon.getFittingRect());
+    // draws the glyphs of the components again when zoomed out far, for icons that changed in place
+    public void redrawGlyphs() {
+        culler.redrawGlyphs();
     }
 
     public void addOverlayNode(Node overlayNode) {
@@ -107,46 +224,17 @@ public class GridCanvasFacade {
         canvas.overlayGroup.getChildren().clear();
     }
 
-    public void clearComponentGroups() {
-        canvas.componentGroup.getChildren().clear();
-        canvas.energyOutlineGroup.getChildren().clear();
-        canvas.boundingRectGroup.getChildren().clear();
-    }
-
-    public void clearAssociationGroup() {
-        canvas.associationGroup.getChildren().clear();
+    public void removeAssociationIcons(Collection<AssociationIcon> icons) {
+        if (icons.isEmpty()) return;
+        Set<Node> nodes = new HashSet<>();
+        icons.forEach(icon -> nodes.add(icon.getAssociationGroup()));
+        nodes.forEach(associationIcons::remove);
+        canvas.associationGroup.getChildren().removeAll(nodes);
     }
 
     public void addAssociationIcon(AssociationIcon icon) {
+        associationIcons.put(icon.getAssociationGroup(), icon);
         canvas.associationGroup.getChildren().add(icon.getAssociationGroup());
-        // install the event handlers on individual association components
-
-        // disables the ghost when hovering over an association
-        icon.getAssociationGroup().addEventHandler(MouseEvent.MOUSE_ENTERED, beginHoverAssociationHandler);
-        icon.getAssociationGroup().addEventHandler(MouseEvent.MOUSE_EXITED, endHoverAssociationHandler);
-
-        // prevents associations from being made inside an association
-        icon.getRect().addEventHandler(MouseEvent.MOUSE_PRESSED, consumeAssociationClicksHandler);
-
-        // the event handlers for the border lines (allows you to drag them)
-        icon.getHandles().forEach(handle -> {
-            handle.addEventHandler(MouseEvent.MOUSE_PRESSED, beginResizeAssociationHandler);
-        });
-        icon.getResizeHandleNW().addEventHandler(MouseEvent.MOUSE_DRAGGED, resizeAssociationNWHandler);
-        setHandleCursorChange(icon.getResizeHandleNW(), Cursor.NW_RESIZE);
-        icon.getResizeHandleSE().addEventHandler(MouseEvent.MOUSE_DRAGGED, resizeAssociationSEHandler);
-        setHandleCursorChange(icon.getResizeHandleSE(), Cursor.SE_RESIZE);
-        icon.getResizeHandleNE().addEventHandler(MouseEvent.MOUSE_DRAGGED, resizeAssociationNEHandler);
-        setHandleCursorChange(icon.getResizeHandleNE(), Cursor.NE_RESIZE);
-        icon.getResizeHandleSW().addEventHandler(MouseEvent.MOUSE_DRAGGED, resizeAssociationSWHandler);
-        setHandleCursorChange(icon.getResizeHandleSW(), Cursor.SW_RESIZE);
-
-        // event handlers for the text (allows you to drag it)
-        Text text = icon.getText();
-        text.addEventHandler(MouseEvent.MOUSE_PRESSED, beginAssociationTextDragHandler);
-        text.addEventHandler(MouseEvent.MOUSE_DRAGGED, dragAssociationTextHandler);
-        text.addEventHandler(MouseEvent.MOUSE_ENTERED, showMoveCursorOnTextHoverHandler);
-        text.addEventHandler(MouseEvent.MOUSE_EXITED, showDefaultCursorOnLeaveTextHoverHandler);
     }
 
     public void showBackgroundGrid(boolean show) {
@@ -157,13 +245,10 @@ public class GridCanvasFacade {
         }
     }
 
-    private void setHandleCursorChange(Node handle, Cursor cursor) {
-        handle.setOnMouseEntered(event -> {
-            if (((Node)event.getTarget()).getOpacity() != 0) {
-                canvas.setCursor(cursor);
-            }
-        });
-        handle.setOnMouseExited(event -> canvas.setCursor(Cursor.DEFAULT));
+    private void showHandleCursor(Node handle, Cursor cursor) {
+        if (handle.getOpacity() != 0) {
+            canvas.setCursor(cursor);
+        }
     }
 
     public void addCanvasEventHandler(EventType eventType, EventHandler eventHandler) {
@@ -174,6 +259,11 @@ public class GridCanvasFacade {
         canvas.addEventFilter(eventType, eventHandler);
     }
 
+    // must be added after the canvas filters that act before the components, like placing wires
+    public EventHandler<MouseEvent> getComponentPressedFilter() {
+        return componentPressedFilter;
+    }
+
     public GridCanvas getCanvas() {
         return canvas;
     }
@@ -0,0 +1,215 @@
+package construction.canvas;
+
+import application.Globals;
+import domain.geometry.SpatialIndex;
+import javafx.application.Platform;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.shape.Rectangle;
+import visualization.componentIcons.ComponentIcon;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Keeps only the component icons near the visible part of the canvas attached to the canvas groups.
+// Every icon is kept in a spatial index, when the view is panned or zoomed past the area attached last time,
+// the icons that left the area are detached and the ones that came into it are attached.
+// The attached area reaches a margin beyond the view, so small pans and zooms do not change what is attached.
+// Zoomed out far the icons' names are hidden, and further out no icons are attached, the glyph layer draws
+// the components in the attached area instead.
+class ViewportCuller {
+
+    private static final double CELL_SIZE = Globals.UNIT * 16;
+    // how far the attached area reaches past the view, as a fraction of the view's size
+    private static final double MARGIN = 0.5;
+
+    private final GridCanvas canvas;
+    private final Scene scene;
+    private final SpatialIndex<ComponentIcon> icons = new SpatialIndex<>(CELL_SIZE);
+    private final Set<ComponentIcon> attachedIcons = new HashSet<>();
+    // the area in canvas coordinates the attached icons were chosen for, null before the first update
+    private Bounds attachedArea = null;
+    private boolean showNames = true;
+    private boolean showGlyphs = false;
+    private boolean redrawPending = false;
+
+    ViewportCuller(GridCanvas canvas, Scene scene) {
+        this.canvas = canvas;
+        this.scene = scene;
+
+        canvas.translateXProperty().addListener((observable, oldValue, newValue) -> updateViewport());
+        canvas.translateYProperty().addListener((observable, oldValue, newValue) -> updateViewport());
+        canvas.scaleXProperty().addListener((observable, oldValue, newValue) -> updateViewport());
+        scene.widthProperty().addListener((observable, oldValue, newValue) -> updateViewport());
+        scene.heightProperty().addListener((observable, oldValue, newValue) -> updateViewport());
+    }
+
+    void add(ComponentIcon icon) {
+        icons.insert(icon, getBounds(icon));
+        if (isInAttachedArea(icon)) attach(List.of(icon));
+        redrawGlyphs();
+    }
+
+    // the new icon takes the old one's place, so the drawing order stays the same if both are attached
+    void replace(ComponentIcon oldIcon, ComponentIcon newIcon) {
+        icons.remove(oldIcon);
+        icons.insert(newIcon, getBounds(newIcon));
+        boolean inArea = isInAttachedArea(newIcon);
+        if (inArea && !showGlyphs && attachedIcons.remove(oldIcon)) {
+            attachedIcons.add(newIcon);
+            replaceNode(canvas.componentGroup.getChildren(), oldIcon.getComponentNode(), newIcon.getComponentNode());
+            replaceNode(canvas.energyOutlineGroup.getChildren(), oldIcon.getEnergyOutlineNodes(), newIcon.getEnergyOutlineNodes());
+            replaceNode(canvas.boundingRectGroup.getChildren(), oldIcon.getBoundingRect(), newIcon.getBoundingRect());
+            replaceNode(canvas.boundingRectGroup.getChildren(), oldIcon.getFittingRect(), newIcon.getFittingRect());
+            newIcon.setTextVisible(showNames);
+        } else {
+            detach(List.of(oldIcon));
+            if (inArea) attach(List.of(newIcon));
+        }
+        redrawGlyphs();
+    }
+
+    void remove(Collection<ComponentIcon> removedIcons) {
+        removedIcons.forEach(icons::remove);
+        detach(removedIcons);
+        redrawGlyphs();
+    }
+
+    // draws the glyphs again once the current changes are done, also after the icons changed without being
+    // replaced, like when they were energized
+    void redrawGlyphs() {
+        if (!showGlyphs || redrawPending) return;
+        redrawPending = true;
+        Platform.runLater(() -> {
+            redrawPending = false;
+            if (showGlyphs && attachedArea != null) {
+                canvas.glyphLayer.draw(attachedArea, canvas.getScale(), icons.query(attachedArea));
+            }
+        });
+    }
+
+    // the topmost icon whose bounding rect contains the point, in canvas coordinates, or null
+    ComponentIcon getIconAt(double x, double y) {
+        ComponentIcon hit = null;
+        for (ComponentIcon icon : icons.query(new BoundingBox(x, y, 0, 0))) {
+            Rectangle rect = icon.getBoundingRect();
+            if (rect.contains(rect.parentToLocal(x, y))) hit = icon;
+        }
+        return hit;
+    }
+
+    // checks whether the view moved past the attached area, if so the icons are attached for the new view
+    void updateViewport() {
+        updateDetailLevel();
+        Bounds view = getView();
+        // after zooming in far the attached area is chosen again so it does not keep the zoomed out view's icons
+        if (attachedArea != null && contains(attachedArea, view)
+                && attachedArea.getWidth() <= view.getWidth() * (1 + 2 * MARGIN) * 2) return;
+
+        double marginX = view.getWidth() * MARGIN;
+        double marginY = view.getHeight() * MARGIN;
+        attachedArea = new BoundingBox(view.getMinX() - marginX, view.getMinY() - marginY,
+                view.getWidth() + 2 * marginX, view.getHeight() + 2 * marginY);
+
+        List<ComponentIcon> visibleIcons = icons.query(attachedArea);
+        Set<ComponentIcon> visible = new HashSet<>(visibleIcons);
+        List<ComponentIcon> leaving = attachedIcons.stream().filter(icon -> !visible.contains(icon))
+                .collect(Collectors.toList());
+        detach(leaving);
+        attach(visibleIcons.stream().filter(icon -> !attachedIcons.contains(icon)).collect(Collectors.toList()));
+        if (showGlyphs) redrawGlyphs();
+    }
+
+    private void updateDetailLevel() {
+        double scale = canvas.getScale();
+        boolean glyphs = scale < Globals.LOD_GLYPHS_MIN_SCALE;
+        boolean names = scale >= Globals.LOD_NAMES_MIN_SCALE;
+
+        if (glyphs != showGlyphs) {
+            // the icons are taken off and then put back the way the new level shows them
+            detach(new ArrayList<>(attachedIcons));
+            showGlyphs = glyphs;
+            attachedArea = null;
+            if (!glyphs) canvas.glyphLayer.clear();
+        }
+        if (names != showNames) {
+            showNames = names;
+            attachedIcons.forEach(icon -> icon.setTextVisible(names));
+        }
+    }
+
+    // puts the icons' nodes on the canvas in one change per group, when glyphs are drawn they are only marked attached
+    private void attach(Collection<ComponentIcon> newIcons) {
+        if (newIcons.isEmpty()) return;
+        if (showGlyphs) {
+            attachedIcons.addAll(newIcons);
+            return;
+        }
+        List<Node> componentNodes = new ArrayList<>(newIcons.size());
+        List<Node> energyOutlineNodes = new ArrayList<>(newIcons.size());
+        List<Node> rectNodes = new ArrayList<>(newIcons.size() * 2);
+        for (ComponentIcon icon : newIcons) {
+            attachedIcons.add(icon);
+            icon.setTextVisible(showNames);
+            componentNodes.add(icon.getComponentNode());
+            energyOutlineNodes.add(icon.getEnergyOutlineNodes());
+            rectNodes.add(icon.getBoundingRect());
+            rectNodes.add(icon.getFittingRect());
+        }
+        canvas.componentGroup.getChildren().addAll(componentNodes);
+        canvas.energyOutlineGroup.getChildren().addAll(energyOutlineNodes);
+        canvas.boundingRectGroup.getChildren().addAll(rectNodes);
+    }
+
+    // takes the icons' nodes off the canvas in one change per group
+    private void detach(Collection<ComponentIcon> detachedIcons) {
+        Set<Node> nodes = new HashSet<>();
+        detachedIcons.forEach(icon -> {
+            if (!attachedIcons.remove(icon)) return;
+            nodes.add(icon.getComponentNode());
+            nodes.add(icon.getEnergyOutlineNodes());
+            nodes.add(icon.getBoundingRect());
+            nodes.add(icon.getFittingRect());
+        });
+        if (nodes.isEmpty() || showGlyphs) return;
+        canvas.componentGroup.getChildren().removeAll(nodes);
+        canvas.energyOutlineGroup.getChildren().removeAll(nodes);
+        canvas.boundingRectGroup.getChildren().removeAll(nodes);
+    }
+
+    private void replaceNode(List<Node> children, Node oldNode, Node newNode) {
+        int index = children.indexOf(oldNode);
+        if (index < 0) {
+            children.add(newNode);
+        } else {
+            children.set(index, newNode);
+        }
+    }
+
+    private boolean isInAttachedArea(ComponentIcon icon) {
+        if (attachedArea == null) updateViewport();
+        return getBounds(icon).intersects(attachedArea);
+    }
+
+    // the part of the canvas the scene shows, the canvas sits at the origin of the scene's root
+    private Bounds getView() {
+        return canvas.parentToLocal(new BoundingBox(0, 0, scene.getWidth(), scene.getHeight()));
+    }
+
+    // the bounding rect is moved by the same translation as the icon, the name may reach past it but stays
+    // within the margin around the view
+    private Bounds getBounds(ComponentIcon icon) {
+        return icon.getBoundingRect().getBoundsInParent();
+    }
+
+    private static boolean contains(Bounds outer, Bounds inner) {
+        return outer.getMinX() <= inner.getMinX() && outer.getMinY() <= inner.getMinY()
+                && outer.getMaxX() >= inner.getMaxX() && outer.getMaxY() >= inner.getMaxY();
+    }
+}
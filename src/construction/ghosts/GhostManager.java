@@ -4,6 +4,9 @@ import construction.properties.PropertiesData;
 import construction.ComponentType;
 import construction.canvas.GridCanvasFacade;
 import domain.geometry.Point;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.scene.paint.Color;
 import visualization.componentIcons.ComponentIcon;
 import visualization.componentIcons.ComponentIconCreator;
 
@@ -17,6 +20,9 @@ public class GhostManager {
     private ComponentIcon ghostIcon;
     private final PropertiesData properties;
     private boolean ghostEnabled;
+    // the ends of the ghost wire while one is being extended, so it is only recreated when it changes
+    private Point ghostWireStart;
+    private Point ghostWireEnd;
 
     public GhostManager(GridCanvasFacade canvasMaster, PropertiesData properties) {
         this.canvasMaster = canvasMaster;
@@ -25,6 +31,7 @@ public class GhostManager {
 
     public void setGhostIcon(ComponentType componentType) {
         ghostEnabled = true;
+        ghostWireStart = null;
         canvasMaster.clearOverlay();
 
         this.ghostIcon = ghostIconCreator(componentType, Point.origin());
@@ -37,6 +44,7 @@ public class GhostManager {
     }
 
     public void updateGhostIcon(ComponentType componentType) {
+        ghostWireStart = null;
         canvasMaster.clearOverlay();
         Point pos = ghostIcon.getTranslate();
         this.ghostIcon = ghostIconCreator(componentType, Point.origin());
@@ -79,10 +87,39 @@ public class GhostManager {
 
     public void extendGhostWire(Point start, Point end) {
         ghostEnabled = true;
+        if (ghostWireStart != null && ghostWireStart.equals(start) && ghostWireEnd.equals(end)) return;
+        ghostWireStart = start;
+        ghostWireEnd = end;
         canvasMaster.clearOverlay();
         ghostIcon = ComponentIconCreator.getWireIcon(start, end, List.of());
         ghostIcon.getComponentNode().setOpacity(GHOST_OPACITY);
         canvasMaster.addOverlayNode(ghostIcon.getComponentNode());
+        canvasMaster.addOverlayNode(ghostIcon.getBoundingRect());
+    }
+
+    // shows a dragged wire at its new position, the ghost stays off so it is not moved with the mouse
+    public void previewWire(Point start, Point end) {
+        ghostWireStart = null;
+        canvasMaster.clearOverlay();
+        ghostIcon = ComponentIconCreator.getWireIcon(start, end, List.of());
+        ghostIcon.getComponentNode().setOpacity(GHOST_OPACITY);
+        canvasMaster.addOverlayNode(ghostIcon.getComponentNode());
+        canvasMaster.addOverlayNode(ghostIcon.getBoundingRect());
+    }
+
+    // the space the ghost would take if it was placed where it is now
+    public Bounds getGhostBounds() {
+        if (ghostIcon == null) return null;
+        Bounds bounds = ghostIcon.getFittingRect().getBoundsInParent();
+        Point translate = ghostIcon.getTranslate();
+        return new BoundingBox(bounds.getMinX() + translate.getX(), bounds.getMinY() + translate.getY(),
+                bounds.getWidth(), bounds.getHeight());
+    }
+
+    // outlines the ghost while it is somewhere it cannot be placed
+    public void showGhostBlocked(boolean blocked) {
+        if (ghostIcon == null) return;
+        ghostIcon.getBoundingRect().setStroke(blocked ? Color.RED : ComponentIcon.DEFAULT_BOUNDING_COLOR);
     }
 
     public void showGhostError() {
@@ -10,7 +10,7 @@ import javafx.event.EventHandler;
 import javafx.scene.input.MouseEvent;
 
 // This controller manages the events for all ghost related logic (the transparent icons that show when placing)
-public class GhostManagerController implements GridFlowEventListener {
+public class GhostManagerController {
 
     private GhostManager ghostModel;
     private AssociationGhostManager associationModel;
@@ -29,20 +29,15 @@ public class GhostManagerController implements GridFlowEventListener {
         this.buildData = buildMenuData;
     }
 
-    public void handleEvent(GridFlowEvent gridFlowEvent) {
-        if (gridFlowEvent instanceof GridChangedEvent) {
-            GridChangedEvent e = (GridChangedEvent)gridFlowEvent;
-            if (e.toolCausingChange == ToolType.WIRE) {
-                ghostModel.setGhostIcon(ComponentType.WIRE);
-            } else if (e.toolCausingChange == ToolType.ASSOCIATION) {
-                associationModel.setAssociationGhost();
-            }
-        } else if (gridFlowEvent instanceof PlacementFailedEvent) {
-            handlePlacementError();
+    public void handleGridChanged(GridChangedEvent e) {
+        if (e.toolCausingChange == ToolType.WIRE) {
+            ghostModel.setGhostIcon(ComponentType.WIRE);
+        } else if (e.toolCausingChange == ToolType.ASSOCIATION) {
+            associationModel.setAssociationGhost();
         }
     }
 
-    private void handlePlacementError() {
+    public void handlePlacementError() {
         System.err.println("Placement Error");
         ghostModel.showGhostError();
     }
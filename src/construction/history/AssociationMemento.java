@@ -2,6 +2,8 @@ package construction.history;
 
 import domain.Association;
 
-public interface AssociationMemento {
+import java.io.Serializable;
+
+public interface AssociationMemento extends Serializable {
     Association getAssociation();
 }
@@ -2,9 +2,10 @@ package construction.history;
 
 import domain.components.Component;
 
+import java.io.Serializable;
 import java.util.List;
 
-public interface ComponentMemento {
+public interface ComponentMemento extends Serializable {
     Component getComponent();
     List<String> getConnectionIDs();
 }
@@ -1,6 +1,11 @@
 package construction.history;
 
+import application.Globals;
 import domain.Grid;
+import domain.components.Component;
+
+import java.io.UncheckedIOException;
+import java.util.List;
 
 public class GridHistorian {
 
@@ -8,53 +13,87 @@ public class GridHistorian {
 
     private final LimitedStack<GridMemento> undoStack;
     private final LimitedStack<GridMemento> redoStack;
-    private GridMemento currentState;
 
     public GridHistorian(Grid grid) {
+        this(grid, Globals.HISTORY_MEMORY_BUDGET);
+    }
+
+    // the undo and redo stacks may each take up to memoryBudget bytes, older states are dropped beyond it
+    public GridHistorian(Grid grid, long memoryBudget) {
         this.grid = grid;
 
-        undoStack = new LimitedStack<>(5);
-        redoStack = new LimitedStack<>(5);
+        undoStack = new LimitedStack<>(memoryBudget, Globals.HISTORY_UNCOMPRESSED_STATES);
+        redoStack = new LimitedStack<>(memoryBudget, Globals.HISTORY_UNCOMPRESSED_STATES);
     }
 
     public void saveState(GridMemento memento) {
+        if (memento == null) return; // the edit did not change anything
         undoStack.push(memento);
         redoStack.clear();
-        currentState = null;
     }
 
-    public void undo() {
+    public void clear() {
+        undoStack.clear();
+        redoStack.clear();
+    }
+
+    // returns false if there was nothing to undo
+    public boolean undo() {
         // get the last state from the top of the stack;
-        GridMemento memento = undoStack.pop();
+        GridMemento memento;
+        try {
+            memento = undoStack.pop();
+        } catch (UncheckedIOException e) {
+            // the state stays on the stack, nothing is lost
+            System.err.println("Cannot undo: " + e.getMessage());
+            return false;
+        }
 
         // check if anything can be redone
         if (memento == null) {
             System.out.println("Nothing to be undone.");
-            return;
-        }
-
-        // save the current state of the grid if it isn't already
-        if (currentState == null) {
-            currentState = grid.makeSnapshot();
+            return false;
         }
-        redoStack.push(currentState); // push the current state to the redo stack
 
-        // restore the last state
-        grid.restore(memento);
-        currentState = memento;
+        // restore the last state, restoring gives back what redoes it
+        redoStack.push(grid.restore(memento));
+        return true;
     }
 
-    public void redo() {
-        GridMemento memento = redoStack.pop();
+    // returns false if there was nothing to redo
+    public boolean redo() {
+        GridMemento memento;
+        try {
+            memento = redoStack.pop();
+        } catch (UncheckedIOException e) {
+            System.err.println("Cannot redo: " + e.getMessage());
+            return false;
+        }
 
         if (memento == null) {
             System.out.println("Nothing to be redone.");
-            return;
+            return false;
         }
 
-        undoStack.push(currentState);
+        undoStack.push(grid.restore(memento));
+        return true;
+    }
+
+    // the components the last undo or redo changed, null if it may have changed any of them
+    public List<Component> getRestoredComponents() {
+        return grid.getRestoredComponents();
+    }
+
+    public int getUndoDepth() {
+        return undoStack.size();
+    }
+
+    public int getRedoDepth() {
+        return redoStack.size();
+    }
 
-        grid.restore(memento);
-        currentState = memento;
+    // estimated bytes held by the undo and redo states together, states still being compressed may be left out
+    public long getFootprint() {
+        return undoStack.getFootprint() + redoStack.getFootprint();
     }
 }
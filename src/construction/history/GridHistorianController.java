@@ -3,7 +3,7 @@ package construction.history;
 import application.events.*;
 import domain.Grid;
 
-public class GridHistorianController implements GridFlowEventListener {
+public class GridHistorianController {
 
     private GridHistorian model;
     private GridFlowEventManager eventManager;
@@ -13,25 +13,35 @@ public class GridHistorianController implements GridFlowEventListener {
         this.model = new GridHistorian(grid);
     }
 
-    @Override
-    public void handleEvent(GridFlowEvent gridFlowEvent) {
-        if (gridFlowEvent instanceof SaveStateEvent) {
-            GridMemento memento = ((SaveStateEvent)gridFlowEvent).getMemento();
-            model.saveState(memento);
-        }
-        if (gridFlowEvent instanceof InternalUndoEvent) {
-            undo();
+    public void handleSaveState(SaveStateEvent event) {
+        model.saveState(event.getMemento());
+    }
 
-        }
+    // the history of the old grid would put its components into the new one
+    public void handleGridReplaced(GridReplacedEvent event) {
+        model.clear();
     }
 
     public void undo() {
-        model.undo();
-        eventManager.sendEvent(new GridChangedEvent());
+        if (!model.undo()) return;
+        sendGridChanged();
     }
 
     public void redo() {
-        model.redo();
-        eventManager.sendEvent(new GridChangedEvent());
+        if (!model.redo()) return;
+        sendGridChanged();
+    }
+
+    // names only what the restore touched, so undoing a toggle is simulated and displayed like the toggle was
+    // like "12 undo, 3 redo, 840 KiB" for the Edit menu
+    public String getHistorySummary() {
+        return model.getUndoDepth() + " undo, " + model.getRedoDepth() + " redo, "
+                + model.getFootprint() / 1024 + " KiB";
+    }
+
+    private void sendGridChanged() {
+        GridChangedEvent e = new GridChangedEvent();
+        e.changedComponents = model.getRestoredComponents();
+        eventManager.sendEvent(e);
     }
 }
@@ -1,11 +1,8 @@
 package construction.history;
 
-import domain.Association;
-import domain.components.Component;
+import java.io.Serializable;
 
-import java.util.List;
-
-public interface GridMemento {
-    List<Component> getComponents();
-    List<Association> getAssociations();
+// a state the grid can be restored to, either a snapshot of the whole grid or a single recorded edit
+// serializable so the history can compress the states it holds on to
+public interface GridMemento extends Serializable {
 }
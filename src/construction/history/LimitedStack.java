@@ -1,36 +1,177 @@
 package construction.history;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
 import java.util.LinkedList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 
-public class LimitedStack<T> {
+// A stack limited by the memory its items take instead of by their count.
+// The most recent items are kept as they are, older ones are serialized and compressed until they are popped.
+// When the items take more than the budget the oldest are dropped, the newest item is always kept.
+// Measuring and compressing run on a background thread so pushing does not hold up the edit, an item popped
+// before its turn came is returned as it is. The items must not change once pushed.
+public class LimitedStack<T extends Serializable> {
 
-    private final int capacity;
-    private final LinkedList<T> stack;
+    // one thread for all stacks, the work for each stack is done in the order it was pushed
+    private static final ExecutorService compressionThread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "History");
+        thread.setDaemon(true);
+        return thread;
+    });
 
-    public LimitedStack(int capacity) {
-        this.capacity = capacity;
+    private final long budget;
+    private final int uncompressedItems;
+    private final LinkedList<Entry<T>> stack;
+    // the estimated bytes the items take, serialized size for recent items and compressed size for older ones
+    // items that were not measured yet are not counted
+    private long footprint = 0;
+
+    private static class Entry<T> {
+        T item; // null once compressed
+        byte[] compressed;
+        long size = 0; // the serialized size while uncompressed, the compressed size after
+        boolean removed = false; // popped, dropped or cleared, the background work on it is thrown away
+
+        Entry(T item) {
+            this.item = item;
+        }
+    }
+
+    public LimitedStack(long budget, int uncompressedItems) {
+        this.budget = budget;
+        this.uncompressedItems = uncompressedItems;
         this.stack = new LinkedList<>();
     }
 
-    public void push(T item) {
-        stack.push(item);
-        if (stack.size() > capacity) {
-            stack.removeLast();
+    public synchronized void push(T item) {
+        Entry<T> entry = new Entry<>(item);
+        stack.push(entry);
+        compressionThread.execute(() -> measure(entry));
+
+        // the item that just moved out of the recent ones is compressed
+        if (stack.size() > uncompressedItems) {
+            Entry<T> old = stack.get(uncompressedItems);
+            compressionThread.execute(() -> compress(old));
         }
     }
 
-    public T pop() {
+    // throws UncheckedIOException if the top item cannot be decompressed, it is left on the stack then
+    public synchronized T pop() {
         if (stack.isEmpty()) {
             return null;
         }
-        return stack.pop();
+        Entry<T> entry = stack.peek();
+        T item = entry.item != null ? entry.item : decompress(entry.compressed);
+        remove(stack.pop());
+        return item;
     }
 
-    public void clear() {
+    public synchronized void clear() {
+        stack.forEach(entry -> entry.removed = true);
         stack.clear();
+        footprint = 0;
+    }
+
+    public synchronized int size() {
+        return stack.size();
+    }
+
+    public synchronized long getFootprint() {
+        return footprint;
+    }
+
+    private void remove(Entry<T> entry) {
+        entry.removed = true;
+        footprint -= entry.size;
+    }
+
+    private void measure(Entry<T> entry) {
+        T item;
+        synchronized (this) {
+            if (entry.removed || entry.item == null) return;
+            item = entry.item;
+        }
+        CountingOutputStream counter = new CountingOutputStream();
+        serialize(item, counter);
+        synchronized (this) {
+            // compressing may have been quicker if the stack was pushed to in a burst
+            if (entry.removed || entry.item == null) return;
+            resize(entry, counter.count);
+        }
+    }
+
+    private void compress(Entry<T> entry) {
+        T item;
+        synchronized (this) {
+            if (entry.removed || entry.item == null) return;
+            item = entry.item;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DeflaterOutputStream out = new DeflaterOutputStream(bytes)) {
+            serialize(item, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        synchronized (this) {
+            if (entry.removed) return;
+            entry.compressed = bytes.toByteArray();
+            entry.item = null;
+            resize(entry, entry.compressed.length);
+        }
     }
 
-    public void printSize() {
-        System.err.println(stack.size());
+    // must hold the lock
+    private void resize(Entry<T> entry, long size) {
+        footprint += size - entry.size;
+        entry.size = size;
+        while (footprint > budget && stack.size() > 1) {
+            remove(stack.removeLast());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T decompress(byte[] compressed) {
+        try (ObjectInputStream in = new ObjectInputStream(new InflaterInputStream(new ByteArrayInputStream(compressed)))) {
+            return (T) in.readObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot restore compressed history state", e);
+        } catch (ClassNotFoundException e) {
+            throw new UncheckedIOException(new IOException("Cannot restore compressed history state", e));
+        }
+    }
+
+    // the stream is flushed but not closed
+    private static void serialize(Serializable item, OutputStream stream) {
+        try {
+            ObjectOutputStream out = new ObjectOutputStream(stream);
+            out.writeObject(item);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // measures the serialized size without keeping the bytes
+    private static class CountingOutputStream extends OutputStream {
+        long count = 0;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
     }
 }
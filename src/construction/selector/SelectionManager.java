@@ -5,6 +5,7 @@ import construction.selector.observable.Observer;
 import construction.selector.observable.TriggeredObservableList;
 import domain.Grid;
 import domain.Selectable;
+import domain.components.Component;
 import domain.components.Wire;
 import domain.geometry.Point;
 import javafx.collections.FXCollections;
@@ -73,6 +74,23 @@ public class SelectionManager {
         return nitems.get();
     }
 
+    // returns the components connected to the selected items that are not selected themselves
+    // these are the components a delete of the selection changes the connections of
+    public List<Component> getSelectionNeighbours() {
+        List<Component> neighbours = new ArrayList<>();
+        selectedIDs.forEach(id -> {
+            Component component = grid.getComponent(id);
+            if (component == null) return;
+            component.getConnections().forEach(connection -> {
+                if (connection != null && !selectedIDs.contains(connection.getId().toString())
+                        && !neighbours.contains(connection)) {
+                    neighbours.add(connection);
+                }
+            });
+        });
+        return neighbours;
+    }
+
     private void setSelect(String ID, boolean select) {
         Selectable item = grid.getSelectableByID(ID);
         if(item==null){
@@ -27,6 +27,9 @@ import javafx.event.EventHandler;
 import javafx.scene.Node;
 import javafx.scene.input.MouseEvent;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class SelectionManagerController {
 
     private SelectionManager model;
@@ -150,6 +153,8 @@ public class SelectionManagerController {
                     dragSelecting = false;
                     dragMoving = true;
                     //dragSingleComponent();
+                    // the press must not start a selection box, also when the icon is not on the canvas to be the target
+                    event.consume();
                     return;
                 }
             }
@@ -168,11 +173,16 @@ public class SelectionManagerController {
      };
 
     public void delete() {
-        GridMemento preDeleteState = grid.makeSnapshot();
+        grid.beginEdit();
+        List<Component> deleteNeighbours = model.getSelectionNeighbours(); // must be found before the connections are removed
         int numDeleted = model.deleteSelectedItems();
+        GridMemento deleteEdit = grid.endEdit();
         if (numDeleted != 0) {
-            gridFlowEventManager.sendEvent(new SaveStateEvent(preDeleteState));
-            gridFlowEventManager.sendEvent(new GridChangedEvent());
+            gridFlowEventManager.sendEvent(new SaveStateEvent(deleteEdit));
+            GridChangedEvent e = new GridChangedEvent();
+            e.changedComponents = deleteNeighbours;
+            e.removedComponents = grid.getRemovedComponents();
+            gridFlowEventManager.sendEvent(e);
         }
     }
 
@@ -241,14 +251,22 @@ public class SelectionManagerController {
             else {
                 // Find the specific component from the targetID
                 Component comp = grid.getComponent(targetIDForSingleComponent);
+                List<Component> draggedComponents = new ArrayList<>();
+                draggedComponents.add(comp);
                 if (comp.getComponentType() == ComponentType.ATS) {
-                    ATS selectedATS = (ATS) grid.getComponent(targetIDForSingleComponent);
-                    modelGrid.addAttachedComponentIDs(selectedATS.getATSCutOutID());
+                    // the ATS's cutout is moved with it
+                    Component cutout = grid.getComponent(((ATS) comp).getATSCutOutID());
+                    if (cutout != null) draggedComponents.add(cutout);
                 }
 
                 //Can't Drag Wires yet
                 if(comp.getComponentType()==ComponentType.WIRE){
-                    modelGrid.setIsDragging(true);
+                    // the wire stays in the grid until it is released, then it is removed and placed again in one edit
+                    if (!modelGrid.beginDrag(draggedComponents)) {
+                        buildMenuData.toolType = ToolType.SELECT;
+                        return;
+                    }
+                    model.deSelectAll();
 
                     doubleClickContext.placing = true;
                     doubleClickContext.beginPoint = getClosestEndpoint(eventPoint, (Wire)comp);
@@ -262,26 +280,10 @@ public class SelectionManagerController {
                         modelGrid.setDragWireBeginPoint(eventPoint);
                     }
 
-
-
-                    SaveStateEvent e = new SaveStateEvent(grid.makeSnapshot());
-                    modelGrid.setPreDragSaveState(e);
-                    gridFlowEventManager.sendEvent(e);
-
-                    int numDeleted = model.deleteSelectedItems();
-                    if (numDeleted == 0){
-                        doubleClickContext.placing = false;
-                        modelGrid.setDragEntireWire(false);
-                        modelGrid.setIsDragging(false);
-                        buildMenuData.toolType = ToolType.SELECT;
-                        return;
-                    }
-
                     buildMenuData.toolType = ToolType.WIRE;
                     if(!modelGrid.getDragEntireWire()) ghostController.dragGhost();
 
                     if(!modelGrid.getDragEntireWire()) ghostController.buildMenuDataChanged();
-                    gridFlowEventManager.sendEvent(new GridChangedEvent());
                     return;
                 }
 
@@ -308,12 +310,9 @@ public class SelectionManagerController {
                 modelGrid.setCopiedComponentID(compName);
                 modelGrid.setOriginalComponentData(originalComponentData);
 
-                modelGrid.setIsDragging(true);
-
-                SaveStateEvent e = new SaveStateEvent(grid.makeSnapshot());
-                modelGrid.setPreDragSaveState(e);
-                gridFlowEventManager.sendEvent(e);
-                model.deleteSelectedItems();
+                // the component stays in the grid until it is released, then it is removed and placed again in one edit
+                modelGrid.beginDrag(draggedComponents);
+                model.deSelectAll();
 
 
             }
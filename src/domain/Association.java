@@ -1,5 +1,6 @@
 package domain;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -12,6 +13,7 @@ import javafx.scene.text.Text;
 import visualization.componentIcons.AssociationIcon;
 import visualization.componentIcons.ComponentIconCreator;
 
+import java.io.IOException;
 import java.util.UUID;
 
 public class Association implements Selectable {
@@ -36,7 +38,13 @@ public class Association implements Selectable {
     // memento constructor (restore from snapshot)
     public Association(String id, String label, String subLabel, String acronym,
                        Point pos, double width, double height, Point labelPos) {
-        this.id = UUID.fromString(id);
+        this(UUID.fromString(id), label, subLabel, acronym, pos, width, height, labelPos);
+    }
+
+    // binary file constructor, the file holds the id itself
+    public Association(UUID id, String label, String subLabel, String acronym,
+                       Point pos, double width, double height, Point labelPos) {
+        this.id = id;
         this.label = label;
         this.subLabel = subLabel;
         this.acronym = acronym;
@@ -107,6 +115,22 @@ public class Association implements Selectable {
         return association;
     }
 
+    // streaming counterpart of getObjectNode used when saving
+    public void writeJson(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("id", id.toString());
+        generator.writeStringField("label", label);
+        generator.writeStringField("subLabel", subLabel);
+        generator.writeStringField("acronym", acronym);
+        Rectangle rect = associationIcon.getRect();
+        generator.writeStringField("pos", new Point(rect.getX(), rect.getY()).toString());
+        generator.writeNumberField("width", rect.getWidth());
+        generator.writeNumberField("height", rect.getHeight());
+        Text text = associationIcon.getText();
+        generator.writeStringField("labelPos", new Point(text.getTranslateX(), text.getTranslateY()).toString());
+        generator.writeEndObject();
+    }
+
     public AssociationMemento makeSnapshot() {
         Rectangle rect = getAssociationIcon().getRect();
         Text text = getAssociationIcon().getText();
@@ -128,6 +152,8 @@ public class Association implements Selectable {
 }
 
 class AssociationSnapshot implements AssociationMemento {
+    private static final long serialVersionUID = 1L;
+
     private String id;
     private String label;
     private String subLabel;
@@ -1,5 +1,6 @@
 package domain;
 
+import application.Globals;
 import construction.builder.GridBuilder;
 import construction.history.AssociationMemento;
 import construction.history.ComponentMemento;
@@ -7,18 +8,56 @@ import construction.history.GridMemento;
 import construction.properties.objectData.ObjectData;
 import domain.components.*;
 import domain.geometry.Point;
+import domain.geometry.SpatialIndex;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
 import javafx.scene.shape.Rectangle;
-import visualization.componentIcons.ComponentIcon;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 public class Grid {
 
+    // a wire is listed in every cell it crosses, so cells of a few units keep long wires cheap
+    private static final double SPATIAL_CELL_SIZE = Globals.UNIT * 4;
+    // how far the fitting rectangle of a component reaches from its position along either axis,
+    // whatever its type and quarter turn. the largest ones, the 12kV breaker and the ATS, reach 3.25 units
+    private static final double DEVICE_REACH = Globals.UNIT * 4;
+    // wires are padded by a tenth of a unit around their ends
+    private static final double WIRE_REACH = Globals.UNIT * 0.5;
+
     private List<Component> components;
     private List<Association> associations;
+    // ids to components and associations, kept in step with the lists so lookups by id do not scan them
+    // the string keyed maps let callers holding an id string skip parsing it into a UUID
+    private final Map<UUID, Component> componentsById = new HashMap<>();
+    private final Map<String, Component> componentsByIdString = new HashMap<>();
+    private final Map<UUID, Association> associationsById = new HashMap<>();
+    private final Map<String, Association> associationsByIdString = new HashMap<>();
+    // the area around each component its fitting rectangle lies in, built on the first conflict query
+    // after the grid is replaced. it is read from the components themselves so it does not build their icons
+    private SpatialIndex<Component> spatialIndex = null;
+    // where each component is in the list, only the positions before firstStalePosition are known to be right
+    // inserting or removing in the middle makes the ones after it stale, they are found again when asked for
+    private final Map<UUID, Integer> positions = new HashMap<>();
+    private int firstStalePosition = 0;
+    // the components the last restore put in, took out or relinked, null if it may have changed any of them
+    private List<Component> restoredComponents = null;
+    // counts changes to which components are in the grid and how they are connected
+    // the simulator uses it to know when its compiled topology is out of date
+    private int structureVersion = 0;
+    // the edit being recorded between beginEdit and endEdit, null when none is
+    private GridEdit openEdit = null;
+    // the components the last edit took out of the grid, kept until the next edit begins
+    private final List<Component> removedComponents = new ArrayList<>();
 
     public Grid() {
         components = new ArrayList<>();
@@ -33,16 +72,53 @@ public class Grid {
         return associations;
     }
 
+    public int getStructureVersion() {
+        return structureVersion;
+    }
+
     public void addComponent(Component component) {
+        if (openEdit != null) openEdit.recordAdded(component);
         components.add(component);
+        indexComponent(component);
+        addToSpatialIndex(component);
+        structureVersion++;
     }
 
     public void addComponents(Component... components) {
         this.components.addAll(Arrays.asList(components));
+        for (Component component : components) {
+            if (openEdit != null) openEdit.recordAdded(component);
+            indexComponent(component);
+            addToSpatialIndex(component);
+        }
+        structureVersion++;
     }
 
     public void addAssociation(Association association) {
+        if (openEdit != null) openEdit.recordAdded(association);
         associations.add(association);
+        indexAssociation(association);
+    }
+
+    private void indexComponent(Component component) {
+        componentsById.put(component.getId(), component);
+        componentsByIdString.put(component.getId().toString(), component);
+    }
+
+    private void indexAssociation(Association association) {
+        associationsById.put(association.getID(), association);
+        associationsByIdString.put(association.getID().toString(), association);
+    }
+
+    private void rebuildIndex() {
+        componentsById.clear();
+        componentsByIdString.clear();
+        associationsById.clear();
+        associationsByIdString.clear();
+        positions.clear();
+        firstStalePosition = 0;
+        components.forEach(this::indexComponent);
+        associations.forEach(this::indexAssociation);
     }
 
     public int deleteSelectedItem(String ID) {
@@ -60,12 +136,20 @@ public class Grid {
     }
 
     private int deleteComponent(Component component) {
+        structureVersion++;
         try {
+            if (openEdit != null) {
+                // deleting disconnects the neighbours, so their state is needed to undo it too
+                openEdit.recordChanged(component);
+                getConnectionsOf(component).forEach(this::recordChange);
+            }
             component.delete();
             if(component instanceof Wire) {
                 removeCausedBridgePoints((Wire) component);
             }
-            components.remove(component);
+            int index = indexOf(component);
+            if (openEdit != null) openEdit.recordRemoved(component, index);
+            removeFromGrid(component, index);
             return 0;
         } catch (UnsupportedOperationException e) {
             System.err.println("Cannot delete Wire: " + component.getId());
@@ -97,7 +181,11 @@ public class Grid {
     }
 
     private void deleteAssociation(Association association) {
-        associations.remove(association);
+        int index = associations.indexOf(association);
+        if (openEdit != null) openEdit.recordRemoved(association, index);
+        associations.remove(index);
+        associationsById.remove(association.getID());
+        associationsByIdString.remove(association.getID().toString());
     }
 
     public int countAssociations() {
@@ -109,21 +197,16 @@ public class Grid {
         ArrayList<Wire> wireConflicts = new ArrayList<>();
         Rectangle currentComponentRect = wire.getComponentIcon().getFittingRect();
 
-        List<ComponentIcon> existingComponents = this.getComponents().stream()
-                .map(comp -> comp.getComponentIcon()).collect(Collectors.toList());
-
-        for(ComponentIcon comp : existingComponents) {
-            if (currentComponentRect.getBoundsInParent().intersects(comp.getFittingRect().getBoundsInParent())) {
-                Component conflictingComponent = this.getComponent(comp.getID());
-                if(conflictingComponent instanceof Wire) {
-                    wireConflicts.add((Wire)conflictingComponent);
-                }
+        for(Component conflictingComponent : getComponentsIntersecting(currentComponentRect)) {
+            if(conflictingComponent instanceof Wire) {
+                wireConflicts.add((Wire)conflictingComponent);
             }
         }
 
         for(Wire conflictWire : wireConflicts) {
             Point conflictPoint = GridBuilder.getConflictPoint(wire, conflictWire);
             if(conflictPoint != null) {
+                recordChange(conflictWire);
                 conflictWire.removeBridgePoint(conflictPoint);
             }
         }
@@ -132,6 +215,68 @@ public class Grid {
     public void clearGrid() {
         components.clear();
         associations.clear();
+        rebuildIndex();
+        spatialIndex = null;
+        structureVersion++;
+    }
+
+    // the position of a component in the grid's list, -1 if it is not in the grid
+    private int indexOf(Component component) {
+        Integer position = positions.get(component.getId());
+        if (position == null || position >= firstStalePosition) {
+            for (int i = firstStalePosition; i < components.size(); i++) {
+                positions.put(components.get(i).getId(), i);
+            }
+            firstStalePosition = components.size();
+            position = positions.get(component.getId());
+        }
+        return position == null || components.get(position) != component ? -1 : position;
+    }
+
+    private void insertComponent(int index, Component component) {
+        components.add(index, component);
+        firstStalePosition = Math.min(firstStalePosition, index);
+        indexComponent(component);
+        addToSpatialIndex(component);
+    }
+
+    // returns the components whose fitting rectangle intersects the given one, in grid order
+    public List<Component> getComponentsIntersecting(Rectangle fittingRect) {
+        return getComponentsIntersecting(fittingRect.getBoundsInParent());
+    }
+
+    public List<Component> getComponentsIntersecting(Bounds bounds) {
+        if (spatialIndex == null) {
+            spatialIndex = new SpatialIndex<>(SPATIAL_CELL_SIZE);
+            components.forEach(this::addToSpatialIndex);
+        }
+        // only the few components near the query build their icons to check their fitting rectangle
+        List<Component> found = spatialIndex.query(bounds).stream()
+                .filter(component -> component.getComponentIcon().getFittingRect().getBoundsInParent().intersects(bounds))
+                .collect(Collectors.toList());
+        // the index keeps the order components were inserted in, which restoring an edit does not follow
+        found.sort(Comparator.comparingInt(this::indexOf));
+        return found;
+    }
+
+    // components do not move once they are in the grid, so their bounds are only read when they are added
+    private void addToSpatialIndex(Component component) {
+        if (spatialIndex == null) return;
+        spatialIndex.insert(component, getReach(component));
+    }
+
+    private static Bounds getReach(Component component) {
+        if (component instanceof Wire) {
+            Point start = ((Wire) component).getStart();
+            Point end = ((Wire) component).getEnd();
+            return new BoundingBox(Math.min(start.getX(), end.getX()) - WIRE_REACH,
+                    Math.min(start.getY(), end.getY()) - WIRE_REACH,
+                    Math.abs(start.getX() - end.getX()) + 2 * WIRE_REACH,
+                    Math.abs(start.getY() - end.getY()) + 2 * WIRE_REACH);
+        }
+        Point position = component.getPosition();
+        return new BoundingBox(position.getX() - DEVICE_REACH, position.getY() - DEVICE_REACH,
+                2 * DEVICE_REACH, 2 * DEVICE_REACH);
     }
 
     public List<Wire> getWires() {
@@ -149,30 +294,225 @@ public class Grid {
     }
 
     public Component getComponent(String id) {
-        return components.stream()
-                .filter(comp -> comp.getId().toString().equals(id))
-                .findFirst().orElse(null);
+        return id == null ? null : componentsByIdString.get(id);
+    }
+
+    public Component getComponent(UUID id) {
+        return componentsById.get(id);
     }
 
     public Association getAssociation(String id) {
-        return associations.stream()
-                .filter(association -> association.getID().toString().equals(id))
-                .findFirst().orElse(null);
+        return id == null ? null : associationsByIdString.get(id);
+    }
+
+    public Association getAssociation(UUID id) {
+        return associationsById.get(id);
     }
 
     public GridMemento makeSnapshot() {
         return new GridSnapshot(components, associations);
     }
 
-    public void restore(GridMemento memento) {
+    // Starts recording an edit. Until endEdit the grid keeps the state each component and association had
+    // before the edit first touched it, so the edit can be undone without a snapshot of the whole grid.
+    // Adding and deleting is recorded by the grid, code changing a component already in the grid calls
+    // recordChange first. Beginning while an edit is open adds to that edit.
+    public void beginEdit() {
+        if (openEdit != null) return;
+        openEdit = new GridEdit();
+        removedComponents.clear();
+    }
+
+    // stops recording and returns the edit, which restores the grid to how it was at beginEdit
+    // returns null if no edit was open or nothing was recorded
+    public GridMemento endEdit() {
+        GridEdit edit = openEdit;
+        openEdit = null;
+        return edit == null || edit.isEmpty() ? null : edit;
+    }
+
+    // the components the last edit took out of the grid, the objects themselves so whoever shows them can let go
+    public List<Component> getRemovedComponents() {
+        return new ArrayList<>(removedComponents);
+    }
+
+    public boolean isEditOpen() {
+        return openEdit != null;
+    }
+
+    // records the state of a component in the grid before it is changed by the open edit
+    public void recordChange(Component component) {
+        if (openEdit == null || component == null) return;
+        if (componentsById.get(component.getId()) != component) return; // not in the grid yet, nothing to restore
+        openEdit.recordChanged(component);
+    }
+
+    public void recordChange(Association association) {
+        if (openEdit == null || association == null) return;
+        if (associationsById.get(association.getID()) != association) return;
+        openEdit.recordChanged(association);
+    }
+
+    // Restores the grid to the state of the memento and returns a memento restoring it back to what it was,
+    // so undo and redo can each push the other's result. Restoring an edit only touches what the edit did.
+    // A component put back under an id that is still in the grid is a new object, the structure version does not
+    // count that, so whoever restores must report getRestoredComponents as changed.
+    public GridMemento restore(GridMemento memento) {
+        if (memento instanceof GridEdit) {
+            return restoreEdit((GridEdit) memento);
+        }
+        GridMemento current = makeSnapshot();
+        restoreSnapshot((GridSnapshot) memento);
+        restoredComponents = null;
+        return current;
+    }
+
+    // the components the last restore put in, took out or relinked, both the objects it took out and those it
+    // put back in their place, null if it may have changed anything as restoring a snapshot or associations does
+    public List<Component> getRestoredComponents() {
+        return restoredComponents;
+    }
+
+    private GridEdit restoreEdit(GridEdit edit) {
+        GridEdit inverse = new GridEdit();
+        List<Component> replaced = new ArrayList<>();
+        boolean structureChanged = false;
+
+        // remove what the edit added, the last added first as it is the likeliest to be at the end of the list
+        List<UUID> addedIDs = new ArrayList<>(edit.addedComponents);
+        for (int i = addedIDs.size() - 1; i >= 0; i--) {
+            Component component = componentsById.get(addedIDs.get(i));
+            if (component == null) continue;
+            int index = indexOf(component);
+            inverse.recordRemoved(component, index);
+            removeFromGrid(component, index);
+            replaced.add(component);
+            structureChanged = true;
+        }
+        for (UUID id : edit.addedAssociations) {
+            Association association = associationsById.get(id);
+            if (association == null) continue;
+            int index = associations.indexOf(association);
+            inverse.recordRemoved(association, index);
+            associations.remove(index);
+            associationsById.remove(id);
+            associationsByIdString.remove(id.toString());
+        }
+
+        // swap changed components for their recorded state, removed ones go back where they were
+        Map<UUID, Component> restored = new HashMap<>();
+        for (Map.Entry<UUID, ComponentMemento> entry : edit.changedComponents.entrySet()) {
+            Component component = entry.getValue().getComponent();
+            restored.put(entry.getKey(), component);
+            Component current = componentsById.get(entry.getKey());
+            if (current == null) {
+                inverse.recordAdded(component);
+                structureChanged = true;
+                continue;
+            }
+            inverse.recordChanged(current);
+            if (!entry.getValue().getConnectionIDs().equals(inverse.changedComponents.get(entry.getKey()).getConnectionIDs())) {
+                structureChanged = true;
+            }
+            components.set(indexOf(current), component);
+            if (spatialIndex != null) spatialIndex.remove(current);
+            replaced.add(current);
+            indexComponent(component);
+            addToSpatialIndex(component);
+        }
+        List<UUID> removedIDs = new ArrayList<>(edit.removedComponentIndices.keySet());
+        for (int i = removedIDs.size() - 1; i >= 0; i--) {
+            Component component = restored.get(removedIDs.get(i));
+            if (component == null || componentsById.containsKey(component.getId())) continue;
+            insertComponent(Math.min(edit.removedComponentIndices.get(removedIDs.get(i)), components.size()), component);
+        }
+        for (Component component : restored.values()) {
+            if (componentsById.get(component.getId()) != component) {
+                // removed by the edit without a recorded position
+                insertComponent(components.size(), component);
+            }
+        }
+
+        for (Map.Entry<UUID, AssociationMemento> entry : edit.changedAssociations.entrySet()) {
+            Association association = entry.getValue().getAssociation();
+            Association current = associationsById.get(entry.getKey());
+            if (current == null) {
+                inverse.recordAdded(association);
+                Integer index = edit.removedAssociationIndices.get(entry.getKey());
+                associations.add(index == null ? associations.size() : Math.min(index, associations.size()), association);
+            } else {
+                inverse.recordChanged(current);
+                associations.set(associations.indexOf(current), association);
+            }
+            indexAssociation(association);
+        }
+
+        // connect the restored components, then point their untouched neighbours at them instead of the
+        // objects they replaced
+        Set<Component> touched = new LinkedHashSet<>(replaced);
+        touched.addAll(restored.values());
+        edit.changedComponents.forEach((id, memento) -> restored.get(id).setConnections(memento.getConnectionIDs().stream()
+                .map(this::getComponent)
+                .collect(Collectors.toList())));
+        for (Component old : replaced) {
+            for (Component neighbour : getConnectionsOf(old)) {
+                if (neighbour != null && componentsById.get(neighbour.getId()) == neighbour && !restored.containsKey(neighbour.getId())) {
+                    relink(neighbour);
+                    touched.add(neighbour);
+                }
+            }
+        }
+
+        if (structureChanged) structureVersion++;
+        // associations are not shown by the simulation, so everything is displayed again when they changed
+        boolean associationsChanged = !edit.addedAssociations.isEmpty() || !edit.changedAssociations.isEmpty();
+        restoredComponents = associationsChanged ? null : new ArrayList<>(touched);
+        return inverse;
+    }
+
+    private void removeFromGrid(Component component, int index) {
+        components.remove(index);
+        positions.remove(component.getId());
+        firstStalePosition = Math.min(firstStalePosition, index);
+        componentsById.remove(component.getId());
+        componentsByIdString.remove(component.getId().toString());
+        if (spatialIndex != null) spatialIndex.remove(component);
+        if (openEdit != null) removedComponents.add(component);
+    }
+
+    // replaces the neighbour's connections with the components now in the grid under the same ids
+    private void relink(Component component) {
+        List<Component> connections = new ArrayList<>();
+        for (Component connection : getConnectionsOf(component)) {
+            Component current = connection == null ? null : componentsById.get(connection.getId());
+            if (current != null || !(component instanceof Wire)) connections.add(current);
+        }
+        component.setConnections(connections);
+    }
+
+    // the connections in the order setConnections takes them, an ATS also holds its main line
+    private static List<Component> getConnectionsOf(Component component) {
+        if (component instanceof ATS) {
+            List<Component> connections = new ArrayList<>(component.getConnections());
+            if (connections.isEmpty()) connections.add(null);
+            connections.add(((ATS) component).getMainLineNode());
+            return connections;
+        }
+        return component.getConnections();
+    }
+
+    private void restoreSnapshot(GridSnapshot memento) {
         // restore components and associations
         this.components = memento.getComponents();
         this.associations = memento.getAssociations();
+        rebuildIndex();
+        spatialIndex = null;
+        structureVersion++;
 
         // link components together
         for (int i = 0; i < components.size(); i++) {
             Component component = components.get(i);
-            List<Component> connections = ((GridSnapshot)memento)
+            List<Component> connections = memento
                     .getComponentConnectionsIDsByIndex(i).stream() // gets list of IDs from the memento
                     .map(connectionID -> getComponent(connectionID)) // maps this to a list of components
                     .collect(Collectors.toList()); // converts the stream back to a list
@@ -182,6 +522,7 @@ public class Grid {
 }
 
 class GridSnapshot implements GridMemento {
+    private static final long serialVersionUID = 1L;
 
     private final List<ComponentMemento> componentMementos = new ArrayList<>();
     private final List<AssociationMemento> associationMementos = new ArrayList<>();
@@ -0,0 +1,77 @@
+package domain;
+
+import construction.history.AssociationMemento;
+import construction.history.ComponentMemento;
+import construction.history.GridMemento;
+import domain.components.Component;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+// The part of the grid a single edit touched, as it was before the edit.
+// Restoring it removes what the edit added and puts back the recorded state of what it changed or removed,
+// the rest of the grid is left alone. Recorded by the grid between beginEdit and endEdit.
+class GridEdit implements GridMemento {
+    private static final long serialVersionUID = 1L;
+
+    // components and associations the edit added, restoring removes them
+    final Set<UUID> addedComponents = new LinkedHashSet<>();
+    final Set<UUID> addedAssociations = new LinkedHashSet<>();
+
+    // state before the edit of everything it changed or removed, in the order it was first touched
+    final Map<UUID, ComponentMemento> changedComponents = new LinkedHashMap<>();
+    final Map<UUID, AssociationMemento> changedAssociations = new LinkedHashMap<>();
+
+    // where removed items were in the grid, in the order they were removed, so restoring puts them back in place
+    final Map<UUID, Integer> removedComponentIndices = new LinkedHashMap<>();
+    final Map<UUID, Integer> removedAssociationIndices = new LinkedHashMap<>();
+
+    // ids whose state is already known, the first recorded state is the one before the edit
+    // only needed while recording, so it is not kept when the history compresses the edit
+    private transient Set<UUID> touched = new HashSet<>();
+
+    void recordAdded(Component component) {
+        if (touched.add(component.getId())) addedComponents.add(component.getId());
+    }
+
+    void recordChanged(Component component) {
+        if (touched.add(component.getId())) changedComponents.put(component.getId(), component.makeSnapshot());
+    }
+
+    // returns false if the component was added by this edit, then removing it leaves nothing to restore
+    boolean recordRemoved(Component component, int index) {
+        if (addedComponents.remove(component.getId())) {
+            touched.remove(component.getId());
+            return false;
+        }
+        recordChanged(component);
+        removedComponentIndices.put(component.getId(), index);
+        return true;
+    }
+
+    void recordAdded(Association association) {
+        if (touched.add(association.getID())) addedAssociations.add(association.getID());
+    }
+
+    void recordChanged(Association association) {
+        if (touched.add(association.getID())) changedAssociations.put(association.getID(), association.makeSnapshot());
+    }
+
+    void recordRemoved(Association association, int index) {
+        if (addedAssociations.remove(association.getID())) {
+            touched.remove(association.getID());
+            return;
+        }
+        recordChanged(association);
+        removedAssociationIndices.put(association.getID(), index);
+    }
+
+    boolean isEmpty() {
+        return addedComponents.isEmpty() && addedAssociations.isEmpty()
+                && changedComponents.isEmpty() && changedAssociations.isEmpty();
+    }
+}
@@ -1,5 +1,6 @@
 package domain.components;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -10,6 +11,7 @@ import domain.geometry.Point;
 import visualization.componentIcons.ComponentIconCreator;
 import visualization.componentIcons.SourceIcon;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.UUID;
 
@@ -32,7 +34,15 @@ public class ATS extends Source {
 
     public ATS(String name, Point position, boolean on) {
         super(name, position, on);
-        createComponentIcon();
+    }
+
+    // for the binary file, which holds the values themselves instead of text
+    public ATS(UUID id, String name, Point position, double angle, boolean on, boolean energized, int state,
+               String atsCutOutID) {
+        super(id, name, position, angle, on);
+        this.energized = energized;
+        this.STATE = state;
+        this.atsCutOutID = atsCutOutID;
     }
 
     public ATS(JsonNode node) {
@@ -42,7 +52,6 @@ public class ATS extends Source {
         this.energized = node.get("energized").asBoolean();
         this.STATE = node.get("STATE").asInt();
         this.atsCutOutID = node.get("atsCutOutID").asText();
-        createComponentIcon();
     }
 
     public ATS(ATSSnapshot snapshot) {
@@ -50,7 +59,6 @@ public class ATS extends Source {
         this.energized = snapshot.energized;
         this.mainLineNode = snapshot.mainLineNode;
         this.STATE = snapshot.STATE;
-        createComponentIcon();
     }
 
     public void connectWire(Wire outWire) {
@@ -100,6 +108,16 @@ public class ATS extends Source {
         return ats;
     }
 
+    @Override
+    protected void writeJsonFields(JsonGenerator generator) throws IOException {
+        super.writeJsonFields(generator);
+        generator.writeStringField("outWire", outWire.getId().toString());
+        generator.writeStringField("mainLineNode", mainLineNode.getId().toString());
+        generator.writeBooleanField("energized", energized);
+        generator.writeNumberField("STATE", STATE);
+        generator.writeStringField("atsCutOutID", atsCutOutID);
+    }
+
     public void createComponentIcon() {
         //changed name field to fix double name printing bug
         SourceIcon icon = ComponentIconCreator.getATSIcon(getPosition(),energized);
@@ -171,6 +189,14 @@ public class ATS extends Source {
     public String getATSCutOutID() {
         return atsCutOutID;
     }
+
+    public boolean isEnergized() {
+        return energized;
+    }
+
+    public int getState() {
+        return STATE;
+    }
     public void setTempID (String temp) {
         this.tempID = temp;
     }
@@ -188,6 +214,8 @@ public class ATS extends Source {
 }
 
 class ATSSnapshot implements ComponentMemento {
+    private static final long serialVersionUID = 1L;
+
     String id;
     String name;
     double angle;
@@ -196,7 +224,7 @@ class ATSSnapshot implements ComponentMemento {
     String outWireID;
     String mainLineNodeID;
     String atsCutOutID;
-    Wire mainLineNode;
+    transient Wire mainLineNode; // not kept when the history compresses the snapshot, setConnections sets it again
     // the states which the ATS can be in
     int STATE = 0;
     boolean energized = true;
@@ -1,5 +1,6 @@
 package domain.components;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -12,6 +13,7 @@ import visualization.componentIcons.BreakerIcon;
 import visualization.componentIcons.ComponentIconCreator;
 import visualization.componentIcons.DeviceIcon;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.UUID;
 
@@ -25,14 +27,20 @@ public class Breaker extends Closeable {
         super(name, position, closedByDefault);
         this.voltage = voltage;
         this.tandemID = tandemID;
-        createComponentIcon();
     }
 
     public Breaker(BreakerSnapshot snapshot) {
         super(UUID.fromString(snapshot.id), snapshot.name, snapshot.pos, snapshot.angle, snapshot.closedByDefault, snapshot.closed, snapshot.locked, snapshot.namePos);
         voltage = snapshot.voltage;
         tandemID = snapshot.tandemid;
-        createComponentIcon();
+    }
+
+    // for the binary file, which holds the values themselves instead of text
+    public Breaker(UUID id, String name, Point position, double angle, boolean closedByDefault, boolean closed,
+                   boolean locked, boolean nameRight, Voltage voltage, String tandemID) {
+        super(id, name, position, angle, closedByDefault, closed, locked, nameRight);
+        this.voltage = voltage;
+        this.tandemID = tandemID;
     }
 
     public Breaker(JsonNode node) {
@@ -41,7 +49,7 @@ public class Breaker extends Closeable {
                 node.get("closedByDefault").asBoolean(), node.get("closed").asBoolean(),
                 node.get("locked").asBoolean(), node.get("namepos").asBoolean());
         voltage = Voltage.valueOf(node.get("voltage").asText());
-        if(node.get("tandemid") == null) {
+        if(node.get("tandemid") == null || node.get("tandemid").isNull()) {
             tandemID = null;
         }
         else {
@@ -50,7 +58,6 @@ public class Breaker extends Closeable {
                 tandemID = null;
             }
         }
-        createComponentIcon();
     }
 
     protected void createComponentIcon() {
@@ -105,6 +112,13 @@ public class Breaker extends Closeable {
         return breaker;
     }
 
+    @Override
+    protected void writeJsonFields(JsonGenerator generator) throws IOException {
+        super.writeJsonFields(generator);
+        generator.writeStringField("voltage", voltage.toString());
+        generator.writeStringField("tandemid", tandemID);
+    }
+
     @Override
     public ComponentMemento makeSnapshot() {
         return new BreakerSnapshot(getId().toString(), getName(), getAngle(), getPosition(), voltage, isClosed(), isClosedByDefault(),
@@ -115,13 +129,13 @@ public class Breaker extends Closeable {
     @Override
     public void toggleState() {
         toggleClosed();
-        createComponentIcon();
+        invalidateComponentIcon();
     }
 
     @Override
     public void toggleLockedState() {
         toggleLocked(); // Changes the locked state in the parent class (closeable)
-        createComponentIcon(); // Updates the component icon to show the new state
+        invalidateComponentIcon(); // The component icon is rebuilt with the new state when it is next used
     }
 
     public String getTandemID() {
@@ -145,6 +159,8 @@ public class Breaker extends Closeable {
 }
 
 class BreakerSnapshot implements ComponentMemento {
+    private static final long serialVersionUID = 1L;
+
     String id;
     String name;
     double angle;
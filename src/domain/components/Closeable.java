@@ -1,11 +1,13 @@
 package domain.components;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import construction.properties.objectData.CloseableData;
 import construction.properties.objectData.ObjectData;
 import domain.geometry.Point;
 
+import java.io.IOException;
 import java.util.UUID;
 
 public abstract class Closeable extends Device implements IToggleable, ILockable {
@@ -58,6 +60,14 @@ public abstract class Closeable extends Device implements IToggleable, ILockable
         return closeable;
     }
 
+    @Override
+    protected void writeJsonFields(JsonGenerator generator) throws IOException {
+        super.writeJsonFields(generator);
+        generator.writeBooleanField("closed", closed);
+        generator.writeBooleanField("closedByDefault", closedByDefault);
+        generator.writeBooleanField("locked", locked);
+    }
+
     @Override
     public ObjectData getComponentObjectData() {
         return new CloseableData(getName(), isNameRight(), isClosedByDefault(), getAngle());
@@ -73,7 +83,7 @@ public abstract class Closeable extends Device implements IToggleable, ILockable
         }
         if (this.closedByDefault != data.isClosed()) {
             this.closedByDefault = data.isClosed();
-            createComponentIcon();
+            invalidateComponentIcon();
         }
     }
 }
@@ -1,5 +1,6 @@
 package domain.components;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import construction.ComponentType;
@@ -10,6 +11,7 @@ import domain.Selectable;
 import domain.geometry.Point;
 import visualization.componentIcons.ComponentIcon;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.UUID;
 
@@ -19,7 +21,9 @@ public abstract class Component implements Selectable {
     private String name;
     private Point position;
     private double angle;
+    // icons are built on first use, so components that are loaded or restored but never shown do not build one
     private ComponentIcon icon;
+    private boolean iconOutdated = false;
     private boolean nameRight;
 
     public Component(String name, Point position) {
@@ -58,6 +62,7 @@ public abstract class Component implements Selectable {
 
     public void setAngle(double angle) {
         if (angle % 90 != 0) return;
+        getComponentIcon(); // an icon built now uses the previous angle, the new rotation is added on top of it
         this.angle = angle;
         getUpdatedComponentIcon().setAngle(angle, getPosition());
     }
@@ -88,9 +93,18 @@ public abstract class Component implements Selectable {
     }
 
     public ComponentIcon getComponentIcon() {
+        if (icon == null || iconOutdated) {
+            iconOutdated = false;
+            createComponentIcon();
+        }
         return icon;
     }
 
+    // marks the icon as outdated instead of rebuilding it, so many changes in a row only rebuild it once
+    protected void invalidateComponentIcon() {
+        iconOutdated = true;
+    }
+
     public void setSelect(boolean select) {
         getComponentIcon().setSelect(select);
     }
@@ -116,10 +130,35 @@ public abstract class Component implements Selectable {
         return component;
     }
 
+    // streaming counterpart of getObjectNode, writes the same fields straight to the generator when saving
+    public void writeJson(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        writeJsonFields(generator);
+        generator.writeEndObject();
+    }
+
+    protected void writeJsonFields(JsonGenerator generator) throws IOException {
+        generator.writeStringField("id", getId().toString());
+        generator.writeStringField("type", this.getClass().getSimpleName());
+        generator.writeStringField("name", getName());
+        writeJsonPosition(generator);
+        generator.writeNumberField("angle", getAngle());
+        generator.writeBooleanField("namepos", isNameRight());
+    }
+
+    protected void writeJsonPosition(JsonGenerator generator) throws IOException {
+        generator.writeStringField("pos", getPosition().toString());
+    }
+
     public abstract ComponentMemento makeSnapshot();
 
     public abstract void delete();
 
+    // whether delete would succeed, checked before a drag picks the component up
+    public boolean isDeletable() {
+        return true;
+    }
+
     public void applyComponentData(ObjectData objectData) {
         ComponentData data = (ComponentData) objectData;
         if (!getName().equals(data.getName()) || nameRight != data.isNamePos()) {
@@ -23,19 +23,21 @@ public class ConnectedLoadText extends Device {
 
     public ConnectedLoadText(String name, Point position) {
         super(name, position);
-        createComponentIcon();
+    }
+
+    // for the binary file, which holds the values themselves instead of text
+    public ConnectedLoadText(UUID id, String name, Point position, double angle, boolean nameRight) {
+        super(id, name, position, angle, nameRight);
     }
 
     public ConnectedLoadText(JsonNode node) {
         super(UUID.fromString(node.get("id").asText()), node.get("name").asText(),
                 Point.fromString(node.get("pos").asText()), node.get("angle").asDouble(),
                 node.get("namepos").asBoolean());
-        createComponentIcon();
     }
 
     public ConnectedLoadText(ConnectedLoadTextSnapshot snapshot) {
         super(UUID.fromString(snapshot.id), snapshot.name, snapshot.pos, snapshot.angle, snapshot.namepos);
-        createComponentIcon();
     }
 
     protected void createComponentIcon() {
@@ -128,6 +130,8 @@ public class ConnectedLoadText extends Device {
 }
 
 class ConnectedLoadTextSnapshot implements ComponentMemento {
+    private static final long serialVersionUID = 1L;
+
     String id;
     String name;
     double angle;
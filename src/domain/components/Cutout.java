@@ -14,12 +14,16 @@ public class Cutout extends Closeable{
 
     public Cutout(String name, Point position, boolean closedByDefault) {
         super(name, position, closedByDefault);
-        createComponentIcon();
     }
 
     public Cutout(CutoutSnapshot snapshot) {
         super(UUID.fromString(snapshot.id), snapshot.name, snapshot.pos, snapshot.angle, snapshot.closedByDefault, snapshot.closed, snapshot.locked, snapshot.namePos);
-        createComponentIcon();
+    }
+
+    // for the binary file, which holds the values themselves instead of text
+    public Cutout(UUID id, String name, Point position, double angle, boolean closedByDefault, boolean closed,
+                  boolean locked, boolean nameRight) {
+        super(id, name, position, angle, closedByDefault, closed, locked, nameRight);
     }
 
     public Cutout(JsonNode node) {
@@ -27,7 +31,6 @@ public class Cutout extends Closeable{
                 Point.fromString(node.get("pos").asText()), node.get("angle").asDouble(),
                 node.get("closedByDefault").asBoolean(), node.get("closed").asBoolean(),
                 node.get("locked").asBoolean(), node.get("namepos").asBoolean());
-        createComponentIcon();
     }
 
     protected void createComponentIcon() {
@@ -57,13 +60,13 @@ public class Cutout extends Closeable{
     @Override
     public void toggleState() {
         toggleClosed();
-        createComponentIcon();
+        invalidateComponentIcon();
     }
 
     @Override
     public void toggleLockedState() {
         toggleLocked();
-        createComponentIcon();
+        invalidateComponentIcon();
     }
 
     @Override
@@ -74,6 +77,8 @@ public class Cutout extends Closeable{
 }
 
 class CutoutSnapshot implements ComponentMemento {
+    private static final long serialVersionUID = 1L;
+
     String id;
     String name;
     double angle;
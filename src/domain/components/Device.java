@@ -1,9 +1,11 @@
 package domain.components;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import domain.geometry.Point;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.UUID;
 
@@ -29,6 +31,13 @@ public abstract class Device extends Component {
         return device;
     }
 
+    @Override
+    protected void writeJsonFields(JsonGenerator generator) throws IOException {
+        super.writeJsonFields(generator);
+        generator.writeStringField("inWire", inWire.getId().toString());
+        generator.writeStringField("outWire", outWire.getId().toString());
+    }
+
     @Override
     public void setConnections(List<Component> connections) {
         inWire = (Wire)connections.get(0);
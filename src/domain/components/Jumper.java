@@ -15,12 +15,16 @@ public class Jumper extends Closeable {
 
     public Jumper(String name, Point position, boolean closedByDefault) {
         super(name, position, closedByDefault);
-        createComponentIcon();
     }
 
     public Jumper(JumperSnapshot snapshot) {
         super(UUID.fromString(snapshot.id), snapshot.name, snapshot.pos, snapshot.angle, snapshot.closedByDefault, snapshot.closed, snapshot.locked, snapshot.namepos);
-        createComponentIcon();
+    }
+
+    // for the binary file, which holds the values themselves instead of text
+    public Jumper(UUID id, String name, Point position, double angle, boolean closedByDefault, boolean closed,
+                  boolean locked, boolean nameRight) {
+        super(id, name, position, angle, closedByDefault, closed, locked, nameRight);
     }
 
     public Jumper(JsonNode node) {
@@ -28,7 +32,6 @@ public class Jumper extends Closeable {
                 Point.fromString(node.get("pos").asText()), node.get("angle").asDouble(),
                 node.get("closedByDefault").asBoolean(), node.get("closed").asBoolean(),
                 node.get("locked").asBoolean(), node.get("namepos").asBoolean());
-        createComponentIcon();
     }
 
     protected void createComponentIcon() {
@@ -58,13 +61,13 @@ public class Jumper extends Closeable {
     @Override
     public void toggleState() {
         toggleClosed();
-        createComponentIcon();
+        invalidateComponentIcon();
     }
 
     @Override
     public void toggleLockedState() {
         toggleLocked();
-        createComponentIcon();
+        invalidateComponentIcon();
     }
 
     @Override
@@ -75,6 +78,8 @@ public class Jumper extends Closeable {
 }
 
 class JumperSnapshot implements ComponentMemento {
+    private static final long serialVersionUID = 1L;
+
     String id;
     String name;
     double angle;
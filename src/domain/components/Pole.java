@@ -14,19 +14,21 @@ public class Pole extends Device {
 
     public Pole(String name, Point position) {
         super(name, position);
-        createComponentIcon();
+    }
+
+    // for the binary file, which holds the values themselves instead of text
+    public Pole(UUID id, String name, Point position, double angle, boolean nameRight) {
+        super(id, name, position, angle, nameRight);
     }
 
     public Pole(JsonNode node) {
         super(UUID.fromString(node.get("id").asText()), node.get("name").asText(),
                 Point.fromString(node.get("pos").asText()), node.get("angle").asDouble(),
                 node.get("namepos").asBoolean());
-        createComponentIcon();
     }
 
     public Pole(PoleSnapshot snapshot) {
         super(UUID.fromString(snapshot.id), snapshot.name, snapshot.pos, snapshot.angle, snapshot.namepos);
-        createComponentIcon();
     }
 
     protected void createComponentIcon() {
@@ -60,6 +62,8 @@ public class Pole extends Device {
 }
 
 class PoleSnapshot implements ComponentMemento {
+    private static final long serialVersionUID = 1L;
+
     String id;
     String name;
     double angle;
@@ -1,5 +1,6 @@
 package domain.components;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -11,6 +12,7 @@ import visualization.componentIcons.ComponentIconCreator;
 import visualization.componentIcons.DeviceIcon;
 import visualization.componentIcons.SourceIcon;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.UUID;
 
@@ -20,19 +22,21 @@ public class PowerSource extends Source {
 
     public PowerSource(String name, Point position, boolean on) {
         super(name, position, on);
-        createComponentIcon();
+    }
+
+    // for the binary file, which holds the values themselves instead of text
+    public PowerSource(UUID id, String name, Point position, double angle, boolean on) {
+        super(id, name, position, angle, on);
     }
 
     public PowerSource(JsonNode node) {
         super(UUID.fromString(node.get("id").asText()), node.get("name").asText(),
                 Point.fromString(node.get("pos").asText()), node.get("angle").asDouble(),
                 node.get("on").asBoolean());
-        createComponentIcon();
     }
 
     public PowerSource(PowerSourceSnapshot snapshot) {
         super(UUID.fromString(snapshot.id), snapshot.name, snapshot.pos, snapshot.angle, snapshot.on);
-        createComponentIcon();
     }
 
     public void connectWire(Wire outWire) {
@@ -47,7 +51,7 @@ public class PowerSource extends Source {
     @Override
     public void toggleState() {
         setOn(!isOn());
-        createComponentIcon();
+        invalidateComponentIcon();
     }
 
     @Override
@@ -75,6 +79,12 @@ public class PowerSource extends Source {
         return powerSource;
     }
 
+    @Override
+    protected void writeJsonFields(JsonGenerator generator) throws IOException {
+        super.writeJsonFields(generator);
+        generator.writeStringField("outWire", outWire.getId().toString());
+    }
+
     protected void createComponentIcon() {
         //changed name field to fix double name printing bug
         SourceIcon icon = ComponentIconCreator.getPowerSourceIcon(getPosition(), " ", isOn(), isLocked());
@@ -109,11 +119,13 @@ public class PowerSource extends Source {
     @Override
     public void toggleLockedState() {
         toggleLocked(); // Changes the locked state in the parent class (closeable)
-        createComponentIcon(); // Updates the component icon to show the new state
+        invalidateComponentIcon(); // The component icon is rebuilt with the new state when it is next used
     }
 }
 
 class PowerSourceSnapshot implements ComponentMemento {
+    private static final long serialVersionUID = 1L;
+
     String id;
     String name;
     double angle;
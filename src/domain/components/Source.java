@@ -1,11 +1,13 @@
 package domain.components;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import construction.properties.objectData.ObjectData;
 import construction.properties.objectData.SourceData;
 import domain.geometry.Point;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.UUID;
 
@@ -55,6 +57,12 @@ public abstract class Source extends Component implements IToggleable, ILockable
         return source;
     }
 
+    @Override
+    protected void writeJsonFields(JsonGenerator generator) throws IOException {
+        super.writeJsonFields(generator);
+        generator.writeBooleanField("on", on);
+    }
+
     @Override
     public ObjectData getComponentObjectData() {
         return new SourceData(getName(), getAngle());
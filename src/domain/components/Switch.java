@@ -17,7 +17,12 @@ public class Switch extends Closeable {
 
     public Switch(String name, Point position, boolean closedByDefault) {
         super(name, position, closedByDefault);
-        createComponentIcon();
+    }
+
+    // for the binary file, which holds the values themselves instead of text
+    public Switch(UUID id, String name, Point position, double angle, boolean closedByDefault, boolean closed,
+                  boolean locked, boolean nameRight) {
+        super(id, name, position, angle, closedByDefault, closed, locked, nameRight);
     }
 
     public Switch(JsonNode node) {
@@ -25,12 +30,10 @@ public class Switch extends Closeable {
                 Point.fromString(node.get("pos").asText()), node.get("angle").asDouble(),
                 node.get("closedByDefault").asBoolean(), node.get("closed").asBoolean(),
                 node.get("locked").asBoolean(), node.get("namepos").asBoolean());
-        createComponentIcon();
     }
 
     public Switch(SwitchSnapshot snapshot) {
         super(UUID.fromString(snapshot.id), snapshot.name, snapshot.pos, snapshot.angle, snapshot.closedByDefault, snapshot.closed, snapshot.locked, snapshot.namepos);
-        createComponentIcon();
     }
 
     protected void createComponentIcon() {
@@ -60,13 +63,13 @@ public class Switch extends Closeable {
     @Override
     public void toggleState() {
         toggleClosed();
-        createComponentIcon();
+        invalidateComponentIcon();
     }
 
     @Override
     public void toggleLockedState() {
         toggleLocked();
-        createComponentIcon();
+        invalidateComponentIcon();
     }
 
     @Override
@@ -76,6 +79,8 @@ public class Switch extends Closeable {
 }
 
 class SwitchSnapshot implements ComponentMemento {
+    private static final long serialVersionUID = 1L;
+
     String id;
     String name;
     double angle;
@@ -17,19 +17,21 @@ public class Transformer extends Device {
 
     public Transformer(String name, Point position) {
         super(name, position);
-        createComponentIcon();
+    }
+
+    // for the binary file, which holds the values themselves instead of text
+    public Transformer(UUID id, String name, Point position, double angle, boolean nameRight) {
+        super(id, name, position, angle, nameRight);
     }
 
     public Transformer(JsonNode node) {
         super(UUID.fromString(node.get("id").asText()), node.get("name").asText(),
                 Point.fromString(node.get("pos").asText()), node.get("angle").asDouble(),
                 node.get("namepos").asBoolean());
-        createComponentIcon();
     }
 
     public Transformer(TransformerSnapshot snapshot) {
         super(UUID.fromString(snapshot.id), snapshot.name, snapshot.pos, snapshot.angle, snapshot.namepos);
-        createComponentIcon();
     }
 
     protected void createComponentIcon() {
@@ -63,6 +65,8 @@ public class Transformer extends Device {
 }
 
 class TransformerSnapshot implements ComponentMemento {
+    private static final long serialVersionUID = 1L;
+
     String id;
     String name;
     double angle;
@@ -1,5 +1,6 @@
 package domain.components;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -10,6 +11,7 @@ import domain.geometry.Point;
 import visualization.componentIcons.ComponentIconCreator;
 import visualization.componentIcons.SourceIcon;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.UUID;
 
@@ -20,19 +22,21 @@ public class Turbine extends Source {
 
     public Turbine(String name, Point position, boolean on) {
         super(name, position, on);
-        createComponentIcon();
+    }
+
+    // for the binary file, which holds the values themselves instead of text
+    public Turbine(UUID id, String name, Point position, double angle, boolean on) {
+        super(id, name, position, angle, on);
     }
 
     public Turbine(JsonNode node) {
         super(UUID.fromString(node.get("id").asText()), node.get("name").asText(),
                 Point.fromString(node.get("pos").asText()), node.get("angle").asDouble(),
                 node.get("on").asBoolean());
-        createComponentIcon();
     }
 
     public Turbine(TurbineSnapshot snapshot) {
         super(UUID.fromString(snapshot.id), snapshot.name, snapshot.pos, snapshot.angle, snapshot.on);
-        createComponentIcon();
     }
 
     public void connectTopOutput(Wire output) {
@@ -62,6 +66,13 @@ public class Turbine extends Source {
         return turbine;
     }
 
+    @Override
+    protected void writeJsonFields(JsonGenerator generator) throws IOException {
+        super.writeJsonFields(generator);
+        generator.writeStringField("outWire1", outWire1.getId().toString());
+        generator.writeStringField("outWire2", outWire2.getId().toString());
+    }
+
     @Override
     public void delete() {
         outWire1.disconnect(getId());
@@ -71,7 +82,7 @@ public class Turbine extends Source {
     @Override
     public void toggleState() {
         setOn(!isOn());
-        createComponentIcon();
+        invalidateComponentIcon();
     }
 
 
@@ -120,11 +131,13 @@ public class Turbine extends Source {
     @Override
     public void toggleLockedState() {
         toggleLocked(); // Changes the locked state in the parent class (closeable)
-        createComponentIcon(); // Updates the component icon to show the new state
+        invalidateComponentIcon(); // The component icon is rebuilt with the new state when it is next used
     }
 }
 
 class TurbineSnapshot implements ComponentMemento {
+    private static final long serialVersionUID = 1L;
+
     String id;
     String name;
     double angle;
@@ -1,5 +1,6 @@
 package domain.components;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
@@ -11,6 +12,7 @@ import visualization.componentIcons.ComponentIconCreator;
 import visualization.componentIcons.DeviceIcon;
 import visualization.componentIcons.WireIcon;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -29,23 +31,24 @@ public class Wire extends Component {
         super("", Point.midpoint(p1, p2));
         start = p1;
         end = p2;
-        createComponentIcon();
     }
 
     public Wire(Point p) {
         super("", p);
         start = p;
         end = p;
-        createComponentIcon();
     }
 
     public Wire(String id, String name, Point start, Point end, double angle, List<Point> bridgePoints, boolean energized, boolean nameRight) {
-        super(UUID.fromString(id), name, Point.midpoint(start, end), angle, nameRight);
+        this(UUID.fromString(id), name, start, end, angle, bridgePoints, energized, nameRight);
+    }
+
+    public Wire(UUID id, String name, Point start, Point end, double angle, List<Point> bridgePoints, boolean energized, boolean nameRight) {
+        super(id, name, Point.midpoint(start, end), angle, nameRight);
         this.bridgePoints = bridgePoints;
         this.energized = energized;
         this.start = start;
         this.end = end;
-        createComponentIcon();
     }
 
     public Wire(JsonNode node, Point start, Point end) {
@@ -76,7 +79,7 @@ public class Wire extends Component {
 
     public void connect(Component... components) {
         connections.addAll(Arrays.asList(components));
-        createComponentIcon();
+        invalidateComponentIcon();
     }
 
     @Override
@@ -87,7 +90,7 @@ public class Wire extends Component {
     @Override
     public void setConnections(List<Component> connections) {
         this.connections = connections;
-        createComponentIcon();
+        invalidateComponentIcon();
     }
 
     @Override
@@ -108,9 +111,33 @@ public class Wire extends Component {
         return wire;
     }
 
+    // a wire is saved by its end points instead of a position
+    @Override
+    protected void writeJsonPosition(JsonGenerator generator) throws IOException {
+    }
+
+    @Override
+    protected void writeJsonFields(JsonGenerator generator) throws IOException {
+        super.writeJsonFields(generator);
+        generator.writeStringField("start", start.toString());
+        generator.writeStringField("end", end.toString());
+
+        generator.writeArrayFieldStart("connections");
+        for (Component connection : connections) {
+            generator.writeString(connection.getId().toString());
+        }
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart("bridgePoints");
+        for (Point bridgePoint : bridgePoints) {
+            generator.writeString(bridgePoint.toString());
+        }
+        generator.writeEndArray();
+    }
+
     public void disconnect(UUID componentID) {
         connections.removeIf(connection -> connection.getId().equals(componentID));
-        createComponentIcon();
+        invalidateComponentIcon();
     }
 
     public boolean isPointWire() {
@@ -128,16 +155,20 @@ public class Wire extends Component {
 
     @Override
     public void delete() {
-        List<Wire> connectedWires = getConnectedWires();
-        if (connections.size() > connectedWires.size()) {
+        if (!isDeletable()) {
             // there are connected non-wires, so the wire cannot be deleted
             throw new UnsupportedOperationException();
         }
-        for (Wire connectedWire : connectedWires) {
+        for (Wire connectedWire : getConnectedWires()) {
             connectedWire.disconnect(getId());
         }
     }
 
+    @Override
+    public boolean isDeletable() {
+        return connections.size() == getConnectedWires().size();
+    }
+
     @Override
     public List<Component> getAccessibleConnections() {
         energize();
@@ -176,14 +207,14 @@ public class Wire extends Component {
 
     public void addBridgePoint(Point bridgePoint) {
         bridgePoints.add(bridgePoint);
-        createComponentIcon();
+        invalidateComponentIcon();
     }
 
     public void removeBridgePoint(Point point) {
         for (Point bridgePoint : bridgePoints) {
             if (bridgePoint.equals(point)) {
                 bridgePoints.remove(bridgePoint);
-                createComponentIcon();
+                invalidateComponentIcon();
                 return;
             }
         }
@@ -197,6 +228,10 @@ public class Wire extends Component {
         return end;
     }
 
+    public List<Point> getBridgePoints() {
+        return bridgePoints;
+    }
+
     @Override
     public ComponentMemento makeSnapshot() {
         List<String> connectionIDs = connections.stream().map(connection -> connection.getId().toString()).collect(Collectors.toList());
@@ -205,6 +240,8 @@ public class Wire extends Component {
 }
 
 class WireSnapshot implements ComponentMemento {
+    private static final long serialVersionUID = 1L;
+
     private String id;
     private String name;
     private Point start;
@@ -2,11 +2,10 @@ package domain.geometry;
 
 import application.Globals;
 
-import java.util.Arrays;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.io.Serializable;
 
-public class Point {
+public class Point implements Serializable {
+    private static final long serialVersionUID = 1L;
 
     private double x;
     private double y;
@@ -75,10 +74,12 @@ public class Point {
         return x == point.x && y == point.y;
     }
 
+    // parses "x,y" as written by toString, called for every coordinate of a loaded grid so it avoids split
     public static Point fromString(String string) {
-        List<Double> coords = Arrays.stream(string.split(",")).map(Double::parseDouble).collect
-                (Collectors.toList());
-        return new Point(coords.get(0), coords.get(1));
+        int comma = string.indexOf(',');
+        int end = string.indexOf(',', comma + 1);
+        if (end < 0) end = string.length();
+        return new Point(Double.parseDouble(string.substring(0, comma)), Double.parseDouble(string.substring(comma + 1, end)));
     }
 
     public Point copy() {
@@ -0,0 +1,96 @@
+package domain.geometry;
+
+import javafx.geometry.Bounds;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// A uniform grid hash over rectangular bounds.
+// Every item is listed in each square cell its bounds touch, so a query only looks at the items in the cells
+// the query area touches instead of at every item. Items are returned in the order they were inserted.
+public class SpatialIndex<T> {
+
+    private final double cellSize;
+    private final Map<Long, List<Entry<T>>> cells = new HashMap<>();
+    private final Map<T, Entry<T>> entries = new HashMap<>();
+    private long nextSequence = 0;
+
+    public SpatialIndex(double cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    public void insert(T item, Bounds bounds) {
+        remove(item);
+        Entry<T> entry = new Entry<>(item, bounds, nextSequence++);
+        entries.put(item, entry);
+        forEachCell(bounds, cell -> cells.computeIfAbsent(cell, key -> new ArrayList<>()).add(entry));
+    }
+
+    public void remove(T item) {
+        Entry<T> entry = entries.remove(item);
+        if (entry == null) return;
+        forEachCell(entry.bounds, cell -> {
+            List<Entry<T>> cellEntries = cells.get(cell);
+            cellEntries.remove(entry);
+            if (cellEntries.isEmpty()) cells.remove(cell);
+        });
+    }
+
+    public void clear() {
+        cells.clear();
+        entries.clear();
+    }
+
+    // returns the items whose bounds intersect the area, in insertion order
+    public List<T> query(Bounds area) {
+        List<Entry<T>> found = new ArrayList<>();
+        Set<Entry<T>> seen = new HashSet<>();
+        forEachCell(area, cell -> {
+            List<Entry<T>> cellEntries = cells.get(cell);
+            if (cellEntries == null) return;
+            for (Entry<T> entry : cellEntries) {
+                // an item spanning several cells is only looked at once
+                if (seen.add(entry) && entry.bounds.intersects(area)) {
+                    found.add(entry);
+                }
+            }
+        });
+        found.sort((entry1, entry2) -> Long.compare(entry1.sequence, entry2.sequence));
+
+        List<T> items = new ArrayList<>(found.size());
+        found.forEach(entry -> items.add(entry.item));
+        return items;
+    }
+
+    private void forEachCell(Bounds bounds, CellConsumer consumer) {
+        long minX = (long) Math.floor(bounds.getMinX() / cellSize);
+        long maxX = (long) Math.floor(bounds.getMaxX() / cellSize);
+        long minY = (long) Math.floor(bounds.getMinY() / cellSize);
+        long maxY = (long) Math.floor(bounds.getMaxY() / cellSize);
+        for (long x = minX; x <= maxX; x++) {
+            for (long y = minY; y <= maxY; y++) {
+                consumer.accept((x << 32) ^ (y & 0xFFFFFFFFL));
+            }
+        }
+    }
+
+    private interface CellConsumer {
+        void accept(long cell);
+    }
+
+    private static class Entry<T> {
+        private final T item;
+        private final Bounds bounds;
+        private final long sequence;
+
+        private Entry(T item, Bounds bounds, long sequence) {
+            this.item = item;
+            this.bounds = bounds;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -1,9 +1,6 @@
 package security;
 
 import application.GridFlowApp;
-import application.events.GridFlowEvent;
-import application.events.GridFlowEventListener;
-import application.events.OpenAccountsEvent;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.*;
 import javafx.scene.image.Image;
@@ -11,7 +8,7 @@ import javafx.stage.*;
 
 import java.io.IOException;
 
-public class AccountController implements GridFlowEventListener {
+public class AccountController {
 
     private CredentialManager credentialManager;
     private Scene scene;
@@ -31,13 +28,6 @@ public class AccountController implements GridFlowEventListener {
         credentialManager.loadAccounts(); /* Load the accounts from the JSON file */
     }
 
-    @Override
-    public void handleEvent(GridFlowEvent gridFlowEvent) {
-        if (gridFlowEvent instanceof OpenAccountsEvent) {
-            openAccountWindow();
-        }
-    }
-
     private void initAccountWindow() throws IOException {
         Stage dialog = new Stage();
         FXMLLoader createAccountViewLoader = new FXMLLoader(getClass().getResource("CreateAccount.fxml"));
@@ -26,7 +26,7 @@ public class LoginController {
             Globals.flag = true;
         }
         /* User logged in, boot rest of application */
-        eventManager.sendApplicationOnlyEvent(new LoginEvent(result));
+        eventManager.sendEvent(new LoginEvent(result));
         return true;
     }
 }
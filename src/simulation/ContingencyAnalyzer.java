@@ -0,0 +1,104 @@
+package simulation;
+
+import domain.Grid;
+import domain.components.Closeable;
+import domain.components.ConnectedLoadText;
+import domain.components.Wire;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+// N-1 contingency analysis: for every closed Closeable, simulates the grid with only that device opened
+// and reports what loses energy compared to the grid as it is.
+// The topology and the switch states are captured when the analyzer is created, so the scenarios run on
+// worker threads without touching the live grid and the energized state of its wires.
+public class ContingencyAnalyzer {
+
+    private final GridTopology topology;
+    private final BitSet conducting = new BitSet();
+    private final BitSet baseline = new BitSet();
+
+    // must be created on the thread that edits the grid
+    public ContingencyAnalyzer(Grid grid) {
+        topology = new GridTopology(grid);
+        topology.readConductingState(conducting);
+        energize(conducting, baseline);
+    }
+
+    // Runs one scenario per closed Closeable in parallel and passes each result to the consumer on the
+    // calling thread as soon as it is done, so results arrive in completion order. Blocks until all are done.
+    public void analyze(Consumer<ContingencyResult> resultConsumer) throws InterruptedException {
+        CompletionService<ContingencyResult> completionService = new ExecutorCompletionService<>(ForkJoinPool.commonPool());
+        List<Future<ContingencyResult>> scenarios = new ArrayList<>();
+        for (int i = 0; i < topology.size(); i++) {
+            if (isScenario(i)) {
+                int device = i;
+                scenarios.add(completionService.submit(() -> runScenario(device)));
+            }
+        }
+
+        try {
+            for (int i = 0; i < scenarios.size(); i++) {
+                try {
+                    resultConsumer.accept(completionService.take().get());
+                } catch (ExecutionException e) {
+                    System.err.println("Contingency scenario failed: " + e.getCause());
+                }
+            }
+        } finally {
+            // only does something if the analysis was interrupted or the consumer threw
+            scenarios.forEach(scenario -> scenario.cancel(true));
+        }
+    }
+
+    // the number of results analyze passes on
+    public int countScenarios() {
+        int count = 0;
+        for (int i = 0; i < topology.size(); i++) {
+            if (isScenario(i)) count++;
+        }
+        return count;
+    }
+
+    private boolean isScenario(int component) {
+        return topology.getComponent(component) instanceof Closeable && conducting.get(component);
+    }
+
+    private ContingencyResult runScenario(int device) {
+        BitSet scenarioConducting = (BitSet) conducting.clone();
+        scenarioConducting.clear(device);
+        BitSet energized = new BitSet(topology.size());
+        energize(scenarioConducting, energized);
+
+        // whatever the baseline reached that the scenario does not
+        BitSet lost = (BitSet) baseline.clone();
+        lost.andNot(energized);
+        List<Wire> deEnergizedWires = new ArrayList<>();
+        List<ConnectedLoadText> lostLoads = new ArrayList<>();
+        for (int i = lost.nextSetBit(0); i >= 0; i = lost.nextSetBit(i + 1)) {
+            if (topology.isWire(i)) {
+                deEnergizedWires.add((Wire) topology.getComponent(i));
+            } else if (topology.getComponent(i) instanceof ConnectedLoadText) {
+                lostLoads.add((ConnectedLoadText) topology.getComponent(i));
+            }
+        }
+        return new ContingencyResult((Closeable) topology.getComponent(device), deEnergizedWires, lostLoads);
+    }
+
+    private void energize(BitSet conducting, BitSet energized) {
+        int[] stack = new int[topology.size()];
+        int top = 0;
+        for (int i = topology.nextSource(0); i >= 0; i = topology.nextSource(i + 1)) {
+            energized.set(i);
+            stack[top++] = i;
+        }
+        topology.explore(conducting, energized, stack, top);
+    }
+}
@@ -0,0 +1,33 @@
+package simulation;
+
+import domain.components.Closeable;
+import domain.components.ConnectedLoadText;
+import domain.components.Wire;
+
+import java.util.List;
+
+// the outcome of one N-1 scenario: the components that lose energy when the device opens
+public class ContingencyResult {
+
+    private final Closeable openedDevice;
+    private final List<Wire> deEnergizedWires;
+    private final List<ConnectedLoadText> lostLoads;
+
+    ContingencyResult(Closeable openedDevice, List<Wire> deEnergizedWires, List<ConnectedLoadText> lostLoads) {
+        this.openedDevice = openedDevice;
+        this.deEnergizedWires = deEnergizedWires;
+        this.lostLoads = lostLoads;
+    }
+
+    public Closeable getOpenedDevice() {
+        return openedDevice;
+    }
+
+    public List<Wire> getDeEnergizedWires() {
+        return deEnergizedWires;
+    }
+
+    public List<ConnectedLoadText> getLostLoads() {
+        return lostLoads;
+    }
+}
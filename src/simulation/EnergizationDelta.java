@@ -0,0 +1,40 @@
+package simulation;
+
+import domain.components.Component;
+import domain.components.Wire;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// What a simulation changed since the previous one was shown: the wires that flipped state and every
+// component whose icon may look different, which are those wires, the devices and sources at their ends
+// and the components that were toggled or locked.
+public class EnergizationDelta {
+
+    private final List<Wire> flippedWires;
+    private final List<Component> affectedComponents;
+
+    EnergizationDelta(List<Wire> flippedWires, List<Component> affectedComponents) {
+        this.flippedWires = flippedWires;
+        this.affectedComponents = affectedComponents;
+    }
+
+    public List<Wire> getFlippedWires() {
+        return flippedWires;
+    }
+
+    public List<Component> getAffectedComponents() {
+        return affectedComponents;
+    }
+
+    // the changes of this delta followed by the newer one, a wire that flipped in both is listed once
+    public EnergizationDelta mergeWith(EnergizationDelta newer) {
+        Set<Wire> wires = new LinkedHashSet<>(flippedWires);
+        wires.addAll(newer.flippedWires);
+        Set<Component> components = new LinkedHashSet<>(affectedComponents);
+        components.addAll(newer.affectedComponents);
+        return new EnergizationDelta(new ArrayList<>(wires), new ArrayList<>(components));
+    }
+}
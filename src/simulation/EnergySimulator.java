@@ -2,46 +2,206 @@ package simulation;
 
 import domain.Grid;
 import domain.components.Component;
-import domain.components.Source;
-import domain.components.Wire;
 
-import java.util.*;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
 
+// Runs over a compiled GridTopology instead of the components themselves.
+// A simulation is split in three steps so it can run away from the thread that edits the grid:
+// createRequest captures the grid on that thread, simulate can run on any thread (one at a time)
+// and the result is applied to the wires back on the editing thread.
+// The simulator keeps the energized state of the last simulation so a request for a few changed
+// components only re-simulates the region they can influence. Only edits that keep the structure of the
+// grid take that path: toggling, locking and undoing them. Placing and deleting compile a new topology.
 public class EnergySimulator {
 
+    // grids with fewer components than this are energized on the calling thread,
+    // below it splitting the search up costs more than it saves
+    private static final int PARALLEL_THRESHOLD = 20000;
+
     private final Grid grid;
-    private final Map<UUID, Boolean> visitedMap;
+    // compiled when a request is created, only recompiled when the structure of the grid changed
+    private GridTopology topology;
+
+    // state of the simulating thread
+    private GridTopology simulatedTopology;
+    private final BitSet energized = new BitSet();
+    private final BitSet visited = new BitSet();
+    private final BitSet region = new BitSet();
+    // wires that changed state and components reported as changed since the last result was taken
+    private final BitSet changedWires = new BitSet();
+    private final BitSet changedComponents = new BitSet();
+    private boolean allWiresChanged = false;
+    private int[] stack = new int[0];
 
     public EnergySimulator(Grid grid) {
         this.grid = grid;
-        visitedMap = new HashMap<>();
     }
 
-    private void deEnergizeGrid(){
-        for (Wire wire : grid.getWires()) {
-            wire.deEnergize();
+    // simulates the whole grid on the calling thread
+    public void energyDFS() {
+        simulate(createRequest(null));
+        takeResult().applyToWires();
+    }
+
+    // must run on the thread that edits the grid, a null collection requests a simulation of the whole grid
+    SimulationRequest createRequest(Collection<Component> changedComponents) {
+        // a request for the whole grid may follow changes nobody named, like an undo that put new objects back
+        // under the same ids, so the topology is compiled again for it
+        if (topology == null || !topology.isCurrent(grid) || changedComponents == null) {
+            topology = new GridTopology(grid);
+        } else {
+            for (Component component : changedComponents) {
+                // restored by undo, the grid holds a new object under the same id
+                if (grid.getComponent(component.getId()) == component) topology.replace(component);
+            }
+        }
+        BitSet conducting = new BitSet(topology.size());
+        topology.readConductingState(conducting);
+
+        int[] seeds = null;
+        if (changedComponents != null) {
+            seeds = changedComponents.stream()
+                    .mapToInt(topology::indexOf)
+                    .filter(index -> index >= 0)
+                    .toArray();
         }
+        return new SimulationRequest(topology, conducting, seeds);
     }
 
-    public void energyDFS() {
-        deEnergizeGrid();
-        clearVisited();
-        for (Source source : grid.getSources()) {
-            explore(source);
+    void simulate(SimulationRequest request) {
+        GridTopology requestTopology = request.getTopology();
+        boolean topologyChanged = requestTopology != simulatedTopology;
+        if (topologyChanged) {
+            // the indices of the previous topology mean nothing anymore, start over and write every wire
+            simulatedTopology = requestTopology;
+            energized.clear();
+            changedWires.clear();
+            changedComponents.clear();
+            allWiresChanged = true;
+            if (stack.length < requestTopology.size()) {
+                stack = new int[requestTopology.size()];
+            }
+        }
+
+        try {
+            if (topologyChanged || request.getSeeds() == null) {
+                allWiresChanged = true;
+                energizeAll(request.getConducting());
+            } else {
+                for (int seed : request.getSeeds()) {
+                    changedComponents.set(seed);
+                }
+                energizeRegion(request.getConducting(), request.getSeeds());
+            }
+        } catch (RuntimeException e) {
+            simulatedTopology = null; // the kept state is unreliable, the next request simulates everything
+            throw e;
         }
     }
 
-    private void explore(Component component) {
-        if (!visitedMap.get(component.getId())) {
-            visitedMap.replace(component.getId(), true);
-            component.getAccessibleConnections().forEach(this::explore);
+    // returns the state of the last simulation, with what changed since the previous result was taken
+    // a simulation of the whole grid makes the result write every wire
+    SimulationResult takeResult() {
+        SimulationResult result = new SimulationResult(simulatedTopology, (BitSet) energized.clone(),
+                allWiresChanged ? null : (BitSet) changedWires.clone(), (BitSet) changedComponents.clone());
+        changedWires.clear();
+        changedComponents.clear();
+        allWiresChanged = false;
+        return result;
+    }
+
+    private void energizeAll(BitSet conducting) {
+        GridTopology topology = simulatedTopology;
+        if (topology.size() >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            new ParallelEnergizer(topology, conducting).run(visited);
+        } else {
+            visited.clear();
+            int top = 0;
+            for (int i = topology.nextSource(0); i >= 0; i = topology.nextSource(i + 1)) {
+                visited.set(i);
+                stack[top++] = i;
+            }
+            topology.explore(conducting, visited, stack, top);
+        }
+
+        for (int i = topology.nextWire(0); i >= 0; i = topology.nextWire(i + 1)) {
+            if (visited.get(i) != energized.get(i)) {
+                changedWires.set(i);
+            }
         }
+        energized.clear();
+        energized.or(visited);
     }
 
-    private void clearVisited() {
-        visitedMap.clear();
-        for (Component component : grid.getComponents()) {
-            visitedMap.put(component.getId(), false);
+    private void energizeRegion(BitSet conducting, int[] seeds) {
+        GridTopology topology = simulatedTopology;
+        findAffectedRegion(conducting, seeds);
+
+        // components outside the region count as visited so the search stays inside it
+        visited.clear();
+        visited.set(0, topology.size());
+        visited.andNot(region);
+        int top = 0;
+        for (int i = region.nextSetBit(0); i >= 0; i = region.nextSetBit(i + 1)) {
+            if (topology.isSource(i) || isFedFromOutside(conducting, i)) {
+                visited.set(i);
+                stack[top++] = i;
+            }
+        }
+        topology.explore(conducting, visited, stack, top);
+
+        for (int i = region.nextSetBit(0); i >= 0; i = region.nextSetBit(i + 1)) {
+            if (visited.get(i) != energized.get(i)) {
+                energized.flip(i);
+                if (topology.isWire(i)) changedWires.set(i);
+            }
+        }
+    }
+
+    // Components at the edge of the region that stop energy may touch components outside of it.
+    // Those kept their state, so one that is energized and conducts energizes the edge component
+    // just like the search over the whole grid would.
+    private boolean isFedFromOutside(BitSet conducting, int component) {
+        GridTopology topology = simulatedTopology;
+        for (int edge = topology.getOffset(component); edge < topology.getOffset(component + 1); edge++) {
+            int connection = topology.getTarget(edge);
+            if (!region.get(connection) && energized.get(connection) && conducting.get(connection)) return true;
+        }
+        return false;
+    }
+
+    // The affected region is every component reachable from the changed components through components
+    // that conduct energy. Components that stop energy are included but not expanded, energy cannot cross them.
+    // The changed components are always expanded since they may have conducted before the change.
+    private void findAffectedRegion(BitSet conducting, int[] seeds) {
+        GridTopology topology = simulatedTopology;
+        region.clear();
+        for (int seed : seeds) {
+            region.set(seed);
+        }
+
+        int top = 0;
+        for (int seed : seeds) {
+            for (int edge = topology.getOffset(seed); edge < topology.getOffset(seed + 1); edge++) {
+                int connection = topology.getTarget(edge);
+                if (!region.get(connection)) {
+                    region.set(connection);
+                    if (conducting.get(connection)) stack[top++] = connection;
+                }
+            }
+        }
+
+        while (top > 0) {
+            int component = stack[--top];
+            for (int edge = topology.getOffset(component); edge < topology.getOffset(component + 1); edge++) {
+                int connection = topology.getTarget(edge);
+                if (!region.get(connection)) {
+                    region.set(connection);
+                    if (conducting.get(connection)) stack[top++] = connection;
+                }
+            }
         }
     }
 }
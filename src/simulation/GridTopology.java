@@ -0,0 +1,152 @@
+package simulation;
+
+import domain.Grid;
+import domain.components.Closeable;
+import domain.components.Component;
+import domain.components.Source;
+import domain.components.Wire;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// A compiled copy of how the components of a grid are connected.
+// Every component gets a dense index and the connections are stored in compressed sparse row form:
+// the connections of component i are targets[offsets[i]] up to targets[offsets[i + 1] - 1].
+// Only the structure is compiled, whether a component conducts is read again for every simulation
+// since toggling and locking do not change the structure. Undo can put a new object back under an id
+// without changing the structure, replace swaps it in.
+public class GridTopology {
+
+    private final Component[] components;
+    private final Map<UUID, Integer> indices;
+    private final int[] offsets;
+    private final int[] targets;
+    private final BitSet wires;
+    private final BitSet sources;
+    private final int structureVersion;
+
+    public GridTopology(Grid grid) {
+        structureVersion = grid.getStructureVersion();
+        List<Component> gridComponents = grid.getComponents();
+        int size = gridComponents.size();
+
+        components = gridComponents.toArray(new Component[0]);
+        indices = new HashMap<>(size * 2);
+        wires = new BitSet(size);
+        sources = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            indices.put(components[i].getId(), i);
+            if (components[i] instanceof Wire) wires.set(i);
+            if (components[i] instanceof Source) sources.set(i);
+        }
+
+        offsets = new int[size + 1];
+        int[] edges = new int[16];
+        int edgeCount = 0;
+        for (int i = 0; i < size; i++) {
+            offsets[i] = edgeCount;
+            for (Component connection : components[i].getConnections()) {
+                // connections to components that are not in the grid cannot carry energy
+                Integer target = connection == null ? null : indices.get(connection.getId());
+                if (target == null) continue;
+                if (edgeCount == edges.length) {
+                    int[] grown = new int[edges.length * 2];
+                    System.arraycopy(edges, 0, grown, 0, edgeCount);
+                    edges = grown;
+                }
+                edges[edgeCount++] = target;
+            }
+        }
+        offsets[size] = edgeCount;
+        targets = new int[edgeCount];
+        System.arraycopy(edges, 0, targets, 0, edgeCount);
+    }
+
+    // takes the component in place of the one compiled under its id, which must have the same connections
+    // does nothing if the id is not part of the topology
+    public void replace(Component component) {
+        Integer index = indices.get(component.getId());
+        if (index != null) components[index] = component;
+    }
+
+    // true if this topology was compiled from the current structure of the grid
+    public boolean isCurrent(Grid grid) {
+        return grid.getStructureVersion() == structureVersion;
+    }
+
+    public int size() {
+        return components.length;
+    }
+
+    public Component getComponent(int index) {
+        return components[index];
+    }
+
+    // returns -1 if the component is not part of the topology
+    public int indexOf(Component component) {
+        Integer index = indices.get(component.getId());
+        return index == null ? -1 : index;
+    }
+
+    public int getOffset(int index) {
+        return offsets[index];
+    }
+
+    public int getTarget(int edge) {
+        return targets[edge];
+    }
+
+    public boolean isWire(int index) {
+        return wires.get(index);
+    }
+
+    public boolean isSource(int index) {
+        return sources.get(index);
+    }
+
+    public int nextWire(int fromIndex) {
+        return wires.nextSetBit(fromIndex);
+    }
+
+    public int nextSource(int fromIndex) {
+        return sources.nextSetBit(fromIndex);
+    }
+
+    // Depth first search from the first top entries of the stack, marking every component energy reaches in visited.
+    // Components are marked when pushed, the ones already on the stack must be marked by the caller,
+    // so a stack of size() entries is always large enough.
+    public void explore(BitSet conducting, BitSet visited, int[] stack, int top) {
+        while (top > 0) {
+            int component = stack[--top];
+            if (!conducting.get(component)) continue;
+            for (int edge = offsets[component]; edge < offsets[component + 1]; edge++) {
+                int connection = targets[edge];
+                if (!visited.get(connection)) {
+                    visited.set(connection);
+                    stack[top++] = connection;
+                }
+            }
+        }
+    }
+
+    // sets the bit of every component that currently lets energy pass through it
+    public void readConductingState(BitSet conducting) {
+        for (int i = 0; i < components.length; i++) {
+            conducting.set(i, conductsEnergy(components[i]));
+        }
+    }
+
+    // mirrors getAccessibleConnections: open closeables and sources that are off do not pass energy on
+    static boolean conductsEnergy(Component component) {
+        if (component instanceof Closeable) {
+            return ((Closeable) component).isClosed();
+        }
+        if (component instanceof Source) {
+            return ((Source) component).isOn();
+        }
+        return true;
+    }
+}
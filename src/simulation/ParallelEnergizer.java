@@ -0,0 +1,105 @@
+package simulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Explores a topology from all of its sources at once on the common fork/join pool.
+// Components are claimed with a compare and set on a shared bitset so every component is expanded by one task only.
+// A task that holds more than one component while other workers are idle splits half of its stack off into a new task.
+class ParallelEnergizer {
+
+    // a task keeps at least this many forked tasks queued before it stops splitting
+    private static final int SURPLUS_TASKS = 2;
+
+    private final GridTopology topology;
+    private final BitSet conducting;
+    private final AtomicLongArray marked;
+
+    ParallelEnergizer(GridTopology topology, BitSet conducting) {
+        this.topology = topology;
+        this.conducting = conducting;
+        this.marked = new AtomicLongArray((topology.size() + 63) >>> 6);
+    }
+
+    // sets the bit of every component that energy reaches, like the sequential search in EnergySimulator
+    void run(BitSet visited) {
+        int[] sources = new int[topology.size()];
+        int top = 0;
+        for (int i = topology.nextSource(0); i >= 0; i = topology.nextSource(i + 1)) {
+            mark(i);
+            sources[top++] = i;
+        }
+        ForkJoinPool.commonPool().invoke(new ExploreTask(sources, top));
+
+        visited.clear();
+        for (int word = 0; word < marked.length(); word++) {
+            long bits = marked.get(word);
+            while (bits != 0) {
+                visited.set((word << 6) + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    // returns true if the component was not marked before
+    private boolean mark(int index) {
+        int word = index >>> 6;
+        long bit = 1L << index;
+        long old;
+        do {
+            old = marked.get(word);
+            if ((old & bit) != 0) return false;
+        } while (!marked.compareAndSet(word, old, old | bit));
+        return true;
+    }
+
+    private class ExploreTask extends RecursiveAction {
+
+        // tasks are never serialized, this only keeps the serial lint quiet
+        private static final long serialVersionUID = 1L;
+
+        private int[] stack;
+        private int top;
+
+        ExploreTask(int[] stack, int top) {
+            this.stack = stack;
+            this.top = top;
+        }
+
+        @Override
+        protected void compute() {
+            List<ExploreTask> forked = new ArrayList<>();
+            while (top > 0) {
+                if (top > 1 && getSurplusQueuedTaskCount() < SURPLUS_TASKS) {
+                    int half = top / 2;
+                    ExploreTask split = new ExploreTask(Arrays.copyOfRange(stack, top - half, top + half), half);
+                    top -= half;
+                    split.fork();
+                    forked.add(split);
+                }
+
+                int component = stack[--top];
+                if (!conducting.get(component)) continue;
+                for (int edge = topology.getOffset(component); edge < topology.getOffset(component + 1); edge++) {
+                    int connection = topology.getTarget(edge);
+                    if (mark(connection)) {
+                        push(connection);
+                    }
+                }
+            }
+            forked.forEach(ExploreTask::join);
+        }
+
+        private void push(int component) {
+            if (top == stack.length) {
+                stack = Arrays.copyOf(stack, Math.max(16, stack.length * 2));
+            }
+            stack[top++] = component;
+        }
+    }
+}
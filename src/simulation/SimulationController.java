@@ -2,21 +2,79 @@ package simulation;
 
 import application.events.*;
 import domain.Grid;
+import domain.components.Component;
+import javafx.application.Platform;
 
-public class SimulationController implements GridFlowEventListener {
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Simulations run on a background thread so the FX thread is free while they run.
+// Requests that arrive while one is waiting to run are merged into it, and a simulation whose request
+// was overtaken by a newer one is not posted, the newer result includes its changes.
+public class SimulationController {
 
     private final EnergySimulator model;
     private final GridFlowEventManager gridFlowEventManager;
 
+    private final ExecutorService simulationThread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Simulation");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Object requestLock = new Object();
+    // the newest request that has not started running yet
+    private SimulationRequest pendingRequest = null;
+
     public SimulationController(Grid grid, GridFlowEventManager gridFlowEventManager) {
         this.model = new EnergySimulator(grid);
         this.gridFlowEventManager = gridFlowEventManager;
     }
 
-    public void handleEvent(GridFlowEvent gridFlowEvent) {
-        if (gridFlowEvent instanceof GridChangedEvent) {
-            model.energyDFS();
-            gridFlowEventManager.sendEvent(new GridEnergizedEvent());
+    public void handleGridChanged(GridChangedEvent event) {
+        requestSimulation(event.changedComponents);
+    }
+
+    // stops the simulation thread when the session it belongs to ends, a running simulation is not posted
+    public void dispose() {
+        simulationThread.shutdownNow();
+    }
+
+    private void requestSimulation(List<Component> changedComponents) {
+        SimulationRequest request = model.createRequest(changedComponents);
+        synchronized (requestLock) {
+            if (pendingRequest == null) {
+                pendingRequest = request;
+                simulationThread.execute(this::runPendingRequest);
+            } else {
+                pendingRequest = pendingRequest.mergeWith(request);
+            }
+        }
+    }
+
+    private void runPendingRequest() {
+        SimulationRequest request;
+        synchronized (requestLock) {
+            request = pendingRequest;
+            pendingRequest = null;
+        }
+
+        try {
+            model.simulate(request);
+        } catch (RuntimeException e) {
+            System.err.println("Simulation failed: " + e);
+            return;
+        }
+
+        synchronized (requestLock) {
+            if (pendingRequest != null) return; // stale, the waiting request will post the newer state
         }
+        SimulationResult result = model.takeResult();
+        Platform.runLater(() -> {
+            if (simulationThread.isShutdown()) return; // the session ended while the simulation ran
+            GridEnergizedEvent e = new GridEnergizedEvent();
+            e.delta = result.applyToWires();
+            gridFlowEventManager.sendEvent(e);
+        });
     }
 }
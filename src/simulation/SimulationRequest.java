@@ -0,0 +1,42 @@
+package simulation;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+// Everything a simulation needs from the grid, captured on the thread that edits it.
+// The topology and the conducting state are not changed after capture, so the simulation can run on another thread.
+class SimulationRequest {
+
+    private final GridTopology topology;
+    private final BitSet conducting;
+    // indices of the changed components, null if the whole grid must be simulated
+    private final int[] seeds;
+
+    SimulationRequest(GridTopology topology, BitSet conducting, int[] seeds) {
+        this.topology = topology;
+        this.conducting = conducting;
+        this.seeds = seeds;
+    }
+
+    GridTopology getTopology() {
+        return topology;
+    }
+
+    BitSet getConducting() {
+        return conducting;
+    }
+
+    int[] getSeeds() {
+        return seeds;
+    }
+
+    // combines this request with a newer one so that a single simulation covers the changes of both
+    SimulationRequest mergeWith(SimulationRequest newer) {
+        if (seeds == null || newer.seeds == null || topology != newer.topology) {
+            return new SimulationRequest(newer.topology, newer.conducting, null);
+        }
+        int[] mergedSeeds = Arrays.copyOf(seeds, seeds.length + newer.seeds.length);
+        System.arraycopy(newer.seeds, 0, mergedSeeds, seeds.length, newer.seeds.length);
+        return new SimulationRequest(newer.topology, newer.conducting, mergedSeeds);
+    }
+}
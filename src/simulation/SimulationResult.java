@@ -0,0 +1,72 @@
+package simulation;
+
+import domain.components.Component;
+import domain.components.Wire;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// The energized state found by a simulation, applied to the wires on the thread that edits the grid.
+class SimulationResult {
+
+    private final GridTopology topology;
+    private final BitSet energized;
+    // wires whose state changed since the last result was applied, null if every wire must be written
+    private final BitSet changedWires;
+    // components the simulated requests reported as changed
+    private final BitSet changedComponents;
+
+    SimulationResult(GridTopology topology, BitSet energized, BitSet changedWires, BitSet changedComponents) {
+        this.topology = topology;
+        this.energized = energized;
+        this.changedWires = changedWires;
+        this.changedComponents = changedComponents;
+    }
+
+    // returns what changed, or null if every wire was written and anything may have changed
+    EnergizationDelta applyToWires() {
+        if (changedWires == null) {
+            for (int i = topology.nextWire(0); i >= 0; i = topology.nextWire(i + 1)) {
+                Wire wire = (Wire) topology.getComponent(i);
+                if (energized.get(i)) {
+                    wire.energize();
+                } else {
+                    wire.deEnergize();
+                }
+            }
+            return null;
+        }
+
+        List<Wire> flippedWires = new ArrayList<>();
+        Set<Component> affectedComponents = new LinkedHashSet<>();
+        // a wire put back by undo holds the state it had when it was recorded, so changed wires are written too
+        BitSet writtenWires = (BitSet) changedWires.clone();
+        for (int i = changedComponents.nextSetBit(0); i >= 0; i = changedComponents.nextSetBit(i + 1)) {
+            affectedComponents.add(topology.getComponent(i));
+            if (topology.isWire(i)) writtenWires.set(i);
+        }
+        for (int i = writtenWires.nextSetBit(0); i >= 0; i = writtenWires.nextSetBit(i + 1)) {
+            Wire wire = (Wire) topology.getComponent(i);
+            if (wire.isEnergized() == energized.get(i)) continue;
+
+            if (energized.get(i)) {
+                wire.energize();
+            } else {
+                wire.deEnergize();
+            }
+            flippedWires.add(wire);
+            affectedComponents.add(wire);
+            // devices and sources show the energy of the wires at their terminals
+            for (int edge = topology.getOffset(i); edge < topology.getOffset(i + 1); edge++) {
+                int connection = topology.getTarget(edge);
+                if (!topology.isWire(connection)) {
+                    affectedComponents.add(topology.getComponent(connection));
+                }
+            }
+        }
+        return new EnergizationDelta(flippedWires, new ArrayList<>(affectedComponents));
+    }
+}
@@ -3,27 +3,91 @@ package visualization;
 import construction.canvas.GridCanvasFacade;
 import domain.Association;
 import domain.Grid;
+import domain.components.ATS;
 import domain.components.Component;
+import simulation.EnergizationDelta;
+import visualization.componentIcons.AssociationIcon;
+import visualization.componentIcons.ComponentIcon;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 public class GridVisualizer {
 
     private final Grid grid;
     private final GridCanvasFacade canvasFacade;
 
+    // the icon on the canvas for each component id, updating an icon can replace it with a new one
+    // and undo can put a new component back under the id
+    private final Map<UUID, ComponentIcon> displayedIcons = new HashMap<>();
+    // an ATS shows the energy of its main line, which is not one of its connections, so it is updated on every change
+    private final List<UUID> mainLineComponents = new ArrayList<>();
+    // the icon on the canvas for each association
+    private final Map<Association, AssociationIcon> displayedAssociationIcons = new HashMap<>();
+
     public GridVisualizer(Grid grid, GridCanvasFacade canvasFacade) {
         this.grid = grid;
         this.canvasFacade = canvasFacade;
     }
 
+    // Brings the canvas in line with the grid. Icons already on the canvas stay there and are updated in place,
+    // only the icons of components and associations that were added or removed since are put on or taken off.
     public void displayGrid() {
-        canvasFacade.clearComponentGroups();
+        Map<UUID, ComponentIcon> removedIcons = new HashMap<>(displayedIcons);
+        mainLineComponents.clear();
         for (Component component : grid.getComponents()) {
-            canvasFacade.addComponentIcon(component.getUpdatedComponentIcon());
+            ComponentIcon displayedIcon = removedIcons.remove(component.getId());
+            ComponentIcon icon = component.getUpdatedComponentIcon();
+            if (displayedIcon == null) {
+                canvasFacade.addComponentIcon(icon);
+            } else if (icon != displayedIcon) {
+                canvasFacade.replaceComponentIcon(displayedIcon, icon);
+            }
+            displayedIcons.put(component.getId(), icon);
+            if (component instanceof ATS) {
+                mainLineComponents.add(component.getId());
+            }
         }
+        removedIcons.keySet().forEach(displayedIcons::remove);
+        canvasFacade.removeComponentIcons(removedIcons.values());
 
-        canvasFacade.clearAssociationGroup();
+        Map<Association, AssociationIcon> removedAssociationIcons = new HashMap<>(displayedAssociationIcons);
         for (Association association : grid.getAssociations()) {
-            canvasFacade.addAssociationIcon(association.getAssociationIcon());
+            AssociationIcon displayedIcon = removedAssociationIcons.remove(association);
+            AssociationIcon icon = association.getAssociationIcon();
+            if (displayedIcon == null) {
+                canvasFacade.addAssociationIcon(icon);
+            } else if (icon != displayedIcon) {
+                canvasFacade.removeAssociationIcons(List.of(displayedIcon));
+                canvasFacade.addAssociationIcon(icon);
+            }
+            displayedAssociationIcons.put(association, icon);
+        }
+        removedAssociationIcons.keySet().forEach(displayedAssociationIcons::remove);
+        canvasFacade.removeAssociationIcons(removedAssociationIcons.values());
+        canvasFacade.redrawGlyphs();
+    }
+
+    // updates only the icons of the components the simulation changed
+    public void displayChanges(EnergizationDelta delta) {
+        delta.getAffectedComponents().forEach(this::updateIcon);
+        mainLineComponents.forEach(id -> updateIcon(grid.getComponent(id)));
+        canvasFacade.redrawGlyphs();
+    }
+
+    private void updateIcon(Component component) {
+        // a component undo has since replaced, or one taken off, is not shown
+        if (component == null || grid.getComponent(component.getId()) != component) return;
+        ComponentIcon displayedIcon = displayedIcons.get(component.getId());
+        if (displayedIcon == null) return; // the component was not on the grid when it was last displayed
+
+        ComponentIcon icon = component.getUpdatedComponentIcon();
+        if (icon != displayedIcon) {
+            canvasFacade.replaceComponentIcon(displayedIcon, icon);
+            displayedIcons.put(component.getId(), icon);
         }
     }
 
@@ -1,12 +1,10 @@
 package visualization;
 
 import application.events.GridEnergizedEvent;
-import application.events.GridFlowEvent;
-import application.events.GridFlowEventListener;
 import construction.canvas.GridCanvasFacade;
 import domain.Grid;
 
-public class VisualizationController implements GridFlowEventListener {
+public class VisualizationController {
 
     private GridVisualizer model;
 
@@ -14,9 +12,11 @@ public class VisualizationController implements GridFlowEventListener {
         this.model = new GridVisualizer(grid, canvasFacade);
     }
 
-    public void handleEvent(GridFlowEvent gridFlowEvent) {
-        if (gridFlowEvent instanceof GridEnergizedEvent) {
+    public void handleGridEnergized(GridEnergizedEvent event) {
+        if (event.delta == null) {
             model.displayGrid();
+        } else {
+            model.displayChanges(event.delta);
         }
     }
 }
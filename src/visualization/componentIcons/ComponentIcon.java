@@ -97,6 +97,28 @@ public class ComponentIcon {
         boundingRect.setStroke(select ? SELECT_COLOR : DEFAULT_BOUNDING_COLOR);
     }
 
+    // hides the name and labels, they cannot be read when zoomed out far
+    public void setTextVisible(boolean visible) {
+        componentNamePositioner.setVisible(visible);
+        textElements.forEach(text -> text.setVisible(visible));
+    }
+
+    // whether any of the energy outlines is shown
+    public boolean isEnergized() {
+        return hasVisibleOutline(energyOutlineNodes);
+    }
+
+    private boolean hasVisibleOutline(Group group) {
+        for (Node node : group.getChildren()) {
+            if (node instanceof Group) {
+                if (hasVisibleOutline((Group) node)) return true;
+            } else if (node.getOpacity() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public Point getMidRight() { return this.midRight; }
 
     public Point getMidLeft() { return this.midLeft; }
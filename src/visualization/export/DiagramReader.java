@@ -0,0 +1,119 @@
+package visualization.export;
+
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+import javafx.scene.shape.Arc;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Line;
+import javafx.scene.shape.QuadCurve;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.shape.Shape;
+import javafx.scene.shape.StrokeLineCap;
+import javafx.scene.text.Text;
+import javafx.scene.transform.Transform;
+
+import java.awt.BasicStroke;
+import java.awt.Font;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.QuadCurve2D;
+import java.awt.geom.Rectangle2D;
+import java.util.List;
+
+// Reads the shapes and text of an icon's nodes into diagram shapes, the way the canvas shows them.
+// Must run on the FX thread when the nodes are on the canvas.
+class DiagramReader {
+
+    // adds the visible shapes under root to shapes in drawing order, root's own transforms move them into
+    // grid coordinates, since it sits directly on a canvas layer
+    static void read(Node root, List<DiagramShape> shapes) {
+        read(root, root.getLocalToParentTransform(), root.getOpacity(), shapes);
+    }
+
+    private static void read(Node node, Transform toGrid, double opacity, List<DiagramShape> shapes) {
+        if (!node.isVisible() || opacity <= 0) return;
+
+        if (node instanceof Parent) {
+            Parent parent = (Parent) node;
+            // names are placed by their pane, which is not laid out if the icon was never shown
+            if (parent.isNeedsLayout()) parent.layout();
+            for (Node child : parent.getChildrenUnmodifiable()) {
+                read(child, toGrid.createConcatenation(child.getLocalToParentTransform()), opacity * child.getOpacity(), shapes);
+            }
+        } else if (node instanceof Text) {
+            Text text = (Text) node;
+            java.awt.Color fill = toAwtColor(text.getFill(), opacity);
+            if (fill == null || text.getText() == null || text.getText().isEmpty()) return;
+            shapes.add(new DiagramShape(text.getText(), toAwtFont(text.getFont()), fill, text.getX(), text.getY(),
+                    toAwtTransform(toGrid)));
+        } else if (node instanceof Shape) {
+            Shape shape = (Shape) node;
+            java.awt.Shape geometry = toAwtGeometry(shape);
+            if (geometry == null) return;
+            java.awt.Color fill = toAwtColor(shape.getFill(), opacity);
+            java.awt.Color stroke = toAwtColor(shape.getStroke(), opacity);
+            if (fill == null && stroke == null) return;
+            shapes.add(new DiagramShape(toAwtTransform(toGrid).createTransformedShape(geometry), fill, stroke,
+                    (float) shape.getStrokeWidth(), toAwtCap(shape.getStrokeLineCap())));
+        }
+    }
+
+    private static java.awt.Shape toAwtGeometry(Shape shape) {
+        if (shape instanceof Line) {
+            Line line = (Line) shape;
+            return new Line2D.Double(line.getStartX(), line.getStartY(), line.getEndX(), line.getEndY());
+        } else if (shape instanceof Rectangle) {
+            Rectangle rect = (Rectangle) shape;
+            return new Rectangle2D.Double(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight());
+        } else if (shape instanceof Circle) {
+            Circle circle = (Circle) shape;
+            double r = circle.getRadius();
+            return new Ellipse2D.Double(circle.getCenterX() - r, circle.getCenterY() - r, 2 * r, 2 * r);
+        } else if (shape instanceof Arc) {
+            // both measure the angles counterclockwise as seen on screen
+            Arc arc = (Arc) shape;
+            return new Arc2D.Double(arc.getCenterX() - arc.getRadiusX(), arc.getCenterY() - arc.getRadiusY(),
+                    2 * arc.getRadiusX(), 2 * arc.getRadiusY(), arc.getStartAngle(), arc.getLength(), Arc2D.OPEN);
+        } else if (shape instanceof QuadCurve) {
+            QuadCurve qc = (QuadCurve) shape;
+            return new QuadCurve2D.Double(qc.getStartX(), qc.getStartY(), qc.getControlX(), qc.getControlY(),
+                    qc.getEndX(), qc.getEndY());
+        }
+        System.err.println("Cannot export " + shape.getClass().getSimpleName());
+        return null;
+    }
+
+    // null for no paint or a fully transparent one
+    private static java.awt.Color toAwtColor(Paint paint, double opacity) {
+        if (!(paint instanceof Color)) return null;
+        Color color = (Color) paint;
+        double alpha = color.getOpacity() * opacity;
+        if (alpha <= 0) return null;
+        return new java.awt.Color((float) color.getRed(), (float) color.getGreen(), (float) color.getBlue(), (float) alpha);
+    }
+
+    private static Font toAwtFont(javafx.scene.text.Font font) {
+        String family = font.getFamily().equals("System") ? Font.SANS_SERIF : font.getFamily();
+        return new Font(family, Font.PLAIN, 1).deriveFont((float) font.getSize());
+    }
+
+    private static AffineTransform toAwtTransform(Transform transform) {
+        return new AffineTransform(transform.getMxx(), transform.getMyx(), transform.getMxy(), transform.getMyy(),
+                transform.getTx(), transform.getTy());
+    }
+
+    private static int toAwtCap(StrokeLineCap cap) {
+        switch (cap) {
+            case ROUND:
+                return BasicStroke.CAP_ROUND;
+            case SQUARE:
+                return BasicStroke.CAP_SQUARE;
+            default:
+                return BasicStroke.CAP_BUTT;
+        }
+    }
+}
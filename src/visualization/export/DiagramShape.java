@@ -0,0 +1,77 @@
+package visualization.export;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+
+// One shape or text of an icon as it is drawn on the canvas, in grid coordinates.
+// Only holds plain values, so tiles can be drawn from it on any thread.
+class DiagramShape {
+
+    // the shape, already moved into grid coordinates, or null for text
+    final Shape geometry;
+    final Color fill; // null if not filled
+    final Color stroke; // null if not stroked
+    final float strokeWidth;
+    final int strokeCap; // one of the BasicStroke caps
+
+    final String text; // null for shapes
+    final Font font;
+    final double textX;
+    final double textY;
+    final AffineTransform textTransform; // from the text's own coordinates to grid coordinates
+
+    DiagramShape(Shape geometry, Color fill, Color stroke, float strokeWidth, int strokeCap) {
+        this.geometry = geometry;
+        this.fill = fill;
+        this.stroke = stroke;
+        this.strokeWidth = strokeWidth;
+        this.strokeCap = strokeCap;
+        this.text = null;
+        this.font = null;
+        this.textX = 0;
+        this.textY = 0;
+        this.textTransform = null;
+    }
+
+    DiagramShape(String text, Font font, Color fill, double x, double y, AffineTransform transform) {
+        this.geometry = null;
+        this.fill = fill;
+        this.stroke = null;
+        this.strokeWidth = 0;
+        this.strokeCap = BasicStroke.CAP_BUTT;
+        this.text = text;
+        this.font = font;
+        this.textX = x;
+        this.textY = y;
+        this.textTransform = transform;
+    }
+
+    boolean isText() {
+        return text != null;
+    }
+
+    void draw(Graphics2D g) {
+        if (isText()) {
+            AffineTransform saved = g.getTransform();
+            g.transform(textTransform);
+            g.setFont(font);
+            g.setColor(fill);
+            g.drawString(text, (float) textX, (float) textY);
+            g.setTransform(saved);
+            return;
+        }
+        if (fill != null) {
+            g.setColor(fill);
+            g.fill(geometry);
+        }
+        if (stroke != null) {
+            g.setColor(stroke);
+            g.setStroke(new BasicStroke(strokeWidth, strokeCap, BasicStroke.JOIN_MITER));
+            g.draw(geometry);
+        }
+    }
+}
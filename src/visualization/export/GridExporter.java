@@ -0,0 +1,324 @@
+package visualization.export;
+
+import application.Globals;
+import base.GridFileManager;
+import domain.Association;
+import domain.Grid;
+import domain.components.Component;
+import domain.geometry.SpatialIndex;
+import javafx.application.Platform;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import simulation.EnergySimulator;
+import visualization.componentIcons.AssociationIcon;
+import visualization.componentIcons.ComponentIcon;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.PathIterator;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+// Exports the whole grid as it is shown on the canvas, energized parts included, without a window.
+// PNG exports are split into tiles of a fixed size. The shapes of one tile at a time are read from the icons,
+// then the tile is drawn and written on a worker thread while the next ones are read. Only a few tiles are in
+// memory at once, however big the grid is. SVG exports are written one icon at a time into a single file.
+// The icons are read on the calling thread, which must be the FX thread if they are on the canvas.
+public class GridExporter {
+
+    public static final int DEFAULT_TILE_SIZE = 2048;
+    // how far the shapes of an icon may reach past its bounds, like the energy outlines and names
+    private static final double MARGIN = Globals.UNIT * 2;
+
+    private final Grid grid;
+    private final SpatialIndex<ComponentIcon> icons = new SpatialIndex<>(Globals.UNIT * 16);
+    private final List<ComponentIcon> iconsInOrder = new ArrayList<>();
+    // the area of the grid with anything on it, null for an empty grid
+    private Bounds extent = null;
+
+    public GridExporter(Grid grid) {
+        this.grid = grid;
+    }
+
+    // Writes the grid as PNG tiles of tileSize pixels, named after the path with the row and column added
+    // (grid.png gives grid_0_0.png, grid_0_1.png, ...). A grid unit is Globals.UNIT canvas pixels long,
+    // so Globals.UNIT pixels per unit draws the grid the size it is on the canvas at no zoom.
+    // Returns the number of tiles written.
+    public int exportPng(String path, int tileSize, double pixelsPerUnit) throws IOException {
+        indexIcons();
+        if (extent == null) return 0;
+
+        String base = path.toLowerCase(Locale.ROOT).endsWith(".png") ? path.substring(0, path.length() - 4) : path;
+        // tile pixels per canvas pixel
+        double scale = pixelsPerUnit / Globals.UNIT;
+        double tileLength = tileSize / scale;
+        int columns = (int) Math.ceil(extent.getWidth() / tileLength);
+        int rows = (int) Math.ceil(extent.getHeight() / tileLength);
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "Export");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // tiles read but not written yet, this bounds the memory the export takes
+        Semaphore tilesInFlight = new Semaphore(threads * 2);
+        List<Future<?>> written = new ArrayList<>();
+        try {
+            for (int row = 0; row < rows; row++) {
+                for (int column = 0; column < columns; column++) {
+                    Bounds tile = new BoundingBox(extent.getMinX() + column * tileLength,
+                            extent.getMinY() + row * tileLength, tileLength, tileLength);
+                    List<DiagramShape> shapes = readShapes(tile);
+                    File file = new File(base + "_" + row + "_" + column + ".png");
+
+                    tilesInFlight.acquireUninterruptibly();
+                    written.add(workers.submit(() -> {
+                        try {
+                            writeTile(shapes, tile, tileSize, scale, file);
+                        } finally {
+                            tilesInFlight.release();
+                        }
+                        return null;
+                    }));
+                }
+            }
+            for (Future<?> tile : written) {
+                tile.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Cannot write tile", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+        return rows * columns;
+    }
+
+    public void exportSvg(String path) throws IOException {
+        indexIcons();
+        Bounds area = extent != null ? extent : new BoundingBox(0, 0, 0, 0);
+
+        try (Writer out = Files.newBufferedWriter(Paths.get(path), StandardCharsets.UTF_8)) {
+            out.write(String.format(Locale.ROOT,
+                    "<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"%.2f %.2f %.2f %.2f\" width=\"%.0f\" height=\"%.0f\">\n",
+                    area.getMinX(), area.getMinY(), area.getWidth(), area.getHeight(), area.getWidth(), area.getHeight()));
+            out.write(String.format(Locale.ROOT, "<rect x=\"%.2f\" y=\"%.2f\" width=\"%.2f\" height=\"%.2f\" fill=\"white\"/>\n",
+                    area.getMinX(), area.getMinY(), area.getWidth(), area.getHeight()));
+
+            // the layers in the order the canvas draws them
+            List<DiagramShape> shapes = new ArrayList<>();
+            for (ComponentIcon icon : iconsInOrder) {
+                DiagramReader.read(icon.getEnergyOutlineNodes(), shapes);
+                writeSvgShapes(shapes, out);
+            }
+            for (ComponentIcon icon : iconsInOrder) {
+                DiagramReader.read(icon.getComponentNode(), shapes);
+                writeSvgShapes(shapes, out);
+            }
+            for (Association association : grid.getAssociations()) {
+                DiagramReader.read(association.getAssociationIcon().getAssociationGroup(), shapes);
+                writeSvgShapes(shapes, out);
+            }
+            out.write("</svg>\n");
+        }
+    }
+
+    private void indexIcons() {
+        icons.clear();
+        iconsInOrder.clear();
+        extent = null;
+        for (Component component : grid.getComponents()) {
+            // updating the icon brings its energy outlines in line with the last simulation
+            ComponentIcon icon = component.getUpdatedComponentIcon();
+            Bounds bounds = getBounds(icon);
+            icons.insert(icon, bounds);
+            iconsInOrder.add(icon);
+            addToExtent(bounds);
+        }
+        for (Association association : grid.getAssociations()) {
+            addToExtent(association.getAssociationIcon().getAssociationGroup().getBoundsInParent());
+        }
+        if (extent != null) {
+            extent = new BoundingBox(Math.floor(extent.getMinX() - MARGIN), Math.floor(extent.getMinY() - MARGIN),
+                    Math.ceil(extent.getWidth() + 2 * MARGIN), Math.ceil(extent.getHeight() + 2 * MARGIN));
+        }
+    }
+
+    private void addToExtent(Bounds bounds) {
+        if (extent == null) {
+            extent = bounds;
+            return;
+        }
+        double minX = Math.min(extent.getMinX(), bounds.getMinX());
+        double minY = Math.min(extent.getMinY(), bounds.getMinY());
+        double maxX = Math.max(extent.getMaxX(), bounds.getMaxX());
+        double maxY = Math.max(extent.getMaxY(), bounds.getMaxY());
+        extent = new BoundingBox(minX, minY, maxX - minX, maxY - minY);
+    }
+
+    private Bounds getBounds(ComponentIcon icon) {
+        Bounds bounds = icon.getBoundingRect().getBoundsInParent();
+        return new BoundingBox(bounds.getMinX() - MARGIN, bounds.getMinY() - MARGIN,
+                bounds.getWidth() + 2 * MARGIN, bounds.getHeight() + 2 * MARGIN);
+    }
+
+    // the shapes that may show in the tile, in the order the canvas draws them
+    private List<DiagramShape> readShapes(Bounds tile) {
+        List<ComponentIcon> tileIcons = icons.query(tile);
+        List<DiagramShape> shapes = new ArrayList<>();
+        tileIcons.forEach(icon -> DiagramReader.read(icon.getEnergyOutlineNodes(), shapes));
+        tileIcons.forEach(icon -> DiagramReader.read(icon.getComponentNode(), shapes));
+        for (Association association : grid.getAssociations()) {
+            AssociationIcon icon = association.getAssociationIcon();
+            if (icon.getAssociationGroup().getBoundsInParent().intersects(tile)) {
+                DiagramReader.read(icon.getAssociationGroup(), shapes);
+            }
+        }
+        return shapes;
+    }
+
+    private static void writeTile(List<DiagramShape> shapes, Bounds tile, int tileSize, double scale, File file) throws IOException {
+        BufferedImage image = new BufferedImage(tileSize, tileSize, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+            g.setColor(java.awt.Color.WHITE);
+            g.fillRect(0, 0, tileSize, tileSize);
+            g.scale(scale, scale);
+            g.translate(-tile.getMinX(), -tile.getMinY());
+            shapes.forEach(shape -> shape.draw(g));
+        } finally {
+            g.dispose();
+        }
+        ImageIO.write(image, "png", file);
+    }
+
+    // writes the shapes and clears the list for the next icon
+    private static void writeSvgShapes(List<DiagramShape> shapes, Writer out) throws IOException {
+        for (DiagramShape shape : shapes) {
+            if (shape.isText()) {
+                double[] m = new double[6];
+                shape.textTransform.getMatrix(m);
+                out.write(String.format(Locale.ROOT,
+                        "<text transform=\"matrix(%.3f %.3f %.3f %.3f %.3f %.3f)\" x=\"%.2f\" y=\"%.2f\" font-family=\"%s\" font-size=\"%.1f\"%s>%s</text>\n",
+                        m[0], m[1], m[2], m[3], m[4], m[5], shape.textX, shape.textY, escape(shape.font.getFamily()),
+                        shape.font.getSize2D(), svgPaint("fill", shape.fill), escape(shape.text)));
+            } else {
+                out.write("<path d=\"" + svgPath(shape.geometry) + "\"" + svgPaint("fill", shape.fill)
+                        + svgPaint("stroke", shape.stroke));
+                if (shape.stroke != null) {
+                    out.write(String.format(Locale.ROOT, " stroke-width=\"%.2f\" stroke-linecap=\"%s\"",
+                            shape.strokeWidth, svgCap(shape.strokeCap)));
+                }
+                out.write("/>\n");
+            }
+        }
+        shapes.clear();
+    }
+
+    private static String svgPath(java.awt.Shape geometry) {
+        StringBuilder path = new StringBuilder();
+        double[] c = new double[6];
+        for (PathIterator it = geometry.getPathIterator(null); !it.isDone(); it.next()) {
+            switch (it.currentSegment(c)) {
+                case PathIterator.SEG_MOVETO:
+                    path.append(String.format(Locale.ROOT, "M%.2f %.2f", c[0], c[1]));
+                    break;
+                case PathIterator.SEG_LINETO:
+                    path.append(String.format(Locale.ROOT, "L%.2f %.2f", c[0], c[1]));
+                    break;
+                case PathIterator.SEG_QUADTO:
+                    path.append(String.format(Locale.ROOT, "Q%.2f %.2f %.2f %.2f", c[0], c[1], c[2], c[3]));
+                    break;
+                case PathIterator.SEG_CUBICTO:
+                    path.append(String.format(Locale.ROOT, "C%.2f %.2f %.2f %.2f %.2f %.2f", c[0], c[1], c[2], c[3], c[4], c[5]));
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    path.append('Z');
+                    break;
+            }
+        }
+        return path.toString();
+    }
+
+    private static String svgPaint(String attribute, java.awt.Color color) {
+        if (color == null) return " " + attribute + "=\"none\"";
+        String paint = String.format(" %s=\"#%02x%02x%02x\"", attribute, color.getRed(), color.getGreen(), color.getBlue());
+        if (color.getAlpha() < 255) {
+            paint += String.format(Locale.ROOT, " %s-opacity=\"%.3f\"", attribute, color.getAlpha() / 255.0);
+        }
+        return paint;
+    }
+
+    private static String svgCap(int cap) {
+        switch (cap) {
+            case java.awt.BasicStroke.CAP_ROUND:
+                return "round";
+            case java.awt.BasicStroke.CAP_SQUARE:
+                return "square";
+            default:
+                return "butt";
+        }
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    // For nightly diagram builds: GridExporter <grid file> <output .svg or .png> [tile size] [pixels per unit]
+    // Without a display run it with -Dglass.platform=Monocle -Dmonocle.platform=Headless -Dprism.order=sw
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: GridExporter <grid file> <output .svg or .png> [tile size] [pixels per unit]");
+            System.exit(2);
+        }
+        int tileSize = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_TILE_SIZE;
+        double pixelsPerUnit = args.length > 3 ? Double.parseDouble(args[3]) : Globals.UNIT;
+
+        // the icons are JavaFX nodes, so the grid is loaded and read on the FX thread
+        Platform.startup(() -> {
+            int status = 0;
+            try {
+                GridFileManager fileManager = new GridFileManager();
+                if (!fileManager.loadGrid(args[0], progress -> {}, () -> false)) {
+                    System.err.println("Cannot load " + args[0]);
+                    System.exit(1);
+                }
+                Grid grid = fileManager.getGrid();
+                new EnergySimulator(grid).energyDFS();
+
+                GridExporter exporter = new GridExporter(grid);
+                if (args[1].toLowerCase(Locale.ROOT).endsWith(".svg")) {
+                    exporter.exportSvg(args[1]);
+                    System.out.println("Exported " + args[1]);
+                } else {
+                    int tiles = exporter.exportPng(args[1], tileSize, pixelsPerUnit);
+                    System.out.println("Exported " + tiles + " tiles");
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                status = 1;
+            }
+            System.exit(status);
+        });
+    }
+}
@@ -0,0 +1,216 @@
+package visualization.minimap;
+
+import domain.Grid;
+import domain.components.Component;
+import domain.components.Wire;
+import domain.geometry.SpatialIndex;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import visualization.componentIcons.ComponentIcon;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// A small picture of the whole canvas with a rectangle around the part the window shows.
+// The picture is cut into tiles that are only drawn again when a component in them moved, was added or removed,
+// or its energy changed. Each component is a glyph of at least one pixel, energized ones are yellow.
+public class Minimap extends Pane {
+
+    // the longer side of the picture in pixels
+    public static final double SIZE = 240;
+    private static final int TILE_SIZE = 32;
+
+    private static final Color BACKGROUND_COLOR = Color.WHITE;
+    private static final Color GLYPH_COLOR = Color.BLACK;
+    private static final Color ENERGY_COLOR = Color.GOLD;
+    private static final Color VIEWPORT_COLOR = Color.DODGERBLUE;
+
+    private final Canvas picture = new Canvas();
+    private final Rectangle viewport = new Rectangle();
+
+    // the components by where they were last drawn, so the tiles a component left are known
+    private final SpatialIndex<Component> drawnComponents = new SpatialIndex<>(TILE_SIZE);
+    private final Map<Component, Bounds> drawnBounds = new HashMap<>();
+    private final Set<Component> drawnEnergized = new HashSet<>();
+    // indices of the tiles to draw again, row * columns + column
+    private final Set<Integer> dirtyTiles = new HashSet<>();
+
+    // picture pixels per canvas pixel
+    private double scale = 1;
+    private int columns = 0;
+    private int rows = 0;
+
+    public Minimap() {
+        viewport.setFill(Color.TRANSPARENT);
+        viewport.setStroke(VIEWPORT_COLOR);
+        viewport.setStrokeWidth(1.5);
+        viewport.setMouseTransparent(true);
+        getChildren().addAll(picture, viewport);
+        setStyle("-fx-border-color: gray;");
+
+        Rectangle clip = new Rectangle();
+        clip.widthProperty().bind(widthProperty());
+        clip.heightProperty().bind(heightProperty());
+        setClip(clip);
+    }
+
+    public double getScale() {
+        return scale;
+    }
+
+    // sizes the picture for a canvas of the given size, everything is drawn again
+    public void setCanvasSize(double canvasWidth, double canvasHeight) {
+        scale = SIZE / Math.max(canvasWidth, canvasHeight);
+        picture.setWidth(Math.ceil(canvasWidth * scale));
+        picture.setHeight(Math.ceil(canvasHeight * scale));
+        setPrefSize(picture.getWidth(), picture.getHeight());
+        setMinSize(picture.getWidth(), picture.getHeight());
+        setMaxSize(picture.getWidth(), picture.getHeight());
+        columns = (int) Math.ceil(picture.getWidth() / TILE_SIZE);
+        rows = (int) Math.ceil(picture.getHeight() / TILE_SIZE);
+
+        // the index is in picture pixels
+        drawnComponents.clear();
+        drawnBounds.forEach((component, bounds) -> drawnComponents.insert(component, toPicture(bounds)));
+        for (int i = 0; i < rows * columns; i++) {
+            dirtyTiles.add(i);
+        }
+    }
+
+    // area is the part of the canvas the window shows, in canvas coordinates
+    public void setViewport(Bounds area) {
+        viewport.setX(area.getMinX() * scale);
+        viewport.setY(area.getMinY() * scale);
+        viewport.setWidth(area.getWidth() * scale);
+        viewport.setHeight(area.getHeight() * scale);
+    }
+
+    public Rectangle getViewport() {
+        return viewport;
+    }
+
+    // compares the components with how they were drawn and marks the tiles of those that differ,
+    // components drawn before that are not on the grid anymore are taken off
+    public void checkAll(Grid grid) {
+        Set<Component> removed = new HashSet<>(drawnBounds.keySet());
+        for (Component component : grid.getComponents()) {
+            removed.remove(component);
+            check(component);
+        }
+        removed.forEach(this::remove);
+    }
+
+    // only the given components are compared, those that are not on the grid anymore are taken off
+    public void check(Grid grid, Collection<Component> components) {
+        for (Component component : components) {
+            if (grid.getComponent(component.getId()) == component) {
+                check(component);
+            } else if (drawnBounds.containsKey(component)) {
+                remove(component);
+            }
+        }
+    }
+
+    // draws the marked tiles again
+    public void redraw() {
+        if (dirtyTiles.isEmpty()) return;
+        GraphicsContext gc = picture.getGraphicsContext2D();
+        for (int tile : dirtyTiles) {
+            drawTile(gc, tile / columns, tile % columns);
+        }
+        dirtyTiles.clear();
+    }
+
+    private void check(Component component) {
+        // the visualizer already brought the icon up to date, this does not build a new one
+        ComponentIcon icon = component.getUpdatedComponentIcon();
+        Bounds bounds = icon.getBoundingRect().getBoundsInParent();
+        boolean energized = icon.isEnergized();
+        Bounds drawn = drawnBounds.get(component);
+        if (bounds.equals(drawn) && energized == drawnEnergized.contains(component)) return;
+
+        if (drawn != null) {
+            markTiles(toPicture(drawn));
+            drawnComponents.remove(component);
+        }
+        drawnBounds.put(component, bounds);
+        if (energized) {
+            drawnEnergized.add(component);
+        } else {
+            drawnEnergized.remove(component);
+        }
+        Bounds pictureBounds = toPicture(bounds);
+        drawnComponents.insert(component, pictureBounds);
+        markTiles(pictureBounds);
+    }
+
+    private void remove(Component component) {
+        Bounds drawn = drawnBounds.remove(component);
+        drawnEnergized.remove(component);
+        drawnComponents.remove(component);
+        markTiles(toPicture(drawn));
+    }
+
+    // in picture pixels, a glyph covers at least one pixel
+    private Bounds toPicture(Bounds bounds) {
+        return new BoundingBox(bounds.getMinX() * scale, bounds.getMinY() * scale,
+                Math.max(bounds.getWidth() * scale, 1), Math.max(bounds.getHeight() * scale, 1));
+    }
+
+    // a glyph may reach one pixel past its bounds
+    private void markTiles(Bounds area) {
+        int firstColumn = Math.max(0, (int) Math.floor((area.getMinX() - 1) / TILE_SIZE));
+        int lastColumn = Math.min(columns - 1, (int) Math.floor((area.getMaxX() + 1) / TILE_SIZE));
+        int firstRow = Math.max(0, (int) Math.floor((area.getMinY() - 1) / TILE_SIZE));
+        int lastRow = Math.min(rows - 1, (int) Math.floor((area.getMaxY() + 1) / TILE_SIZE));
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                dirtyTiles.add(row * columns + column);
+            }
+        }
+    }
+
+    private void drawTile(GraphicsContext gc, int row, int column) {
+        double x = column * TILE_SIZE;
+        double y = row * TILE_SIZE;
+        gc.save();
+        gc.beginPath();
+        gc.rect(x, y, TILE_SIZE, TILE_SIZE);
+        gc.clip();
+        gc.setFill(BACKGROUND_COLOR);
+        gc.fillRect(x, y, TILE_SIZE, TILE_SIZE);
+
+        // energized glyphs are drawn last so they show where components are packed tighter than a pixel
+        List<Component> components = drawnComponents.query(new BoundingBox(x - 1, y - 1, TILE_SIZE + 2, TILE_SIZE + 2));
+        gc.setFill(GLYPH_COLOR);
+        for (Component component : components) {
+            if (!drawnEnergized.contains(component)) drawGlyph(gc, component);
+        }
+        gc.setFill(ENERGY_COLOR);
+        for (Component component : components) {
+            if (drawnEnergized.contains(component)) drawGlyph(gc, component);
+        }
+        gc.restore();
+    }
+
+    // at this size only wires are drawn as they are, a device is a dot where it is
+    private void drawGlyph(GraphicsContext gc, Component component) {
+        // on whole pixels, so a glyph is not blended away into its neighbours
+        Bounds bounds = toPicture(drawnBounds.get(component));
+        if (component instanceof Wire) {
+            gc.fillRect(Math.floor(bounds.getMinX()), Math.floor(bounds.getMinY()),
+                    Math.max(1, Math.round(bounds.getWidth())), Math.max(1, Math.round(bounds.getHeight())));
+        } else {
+            gc.fillRect(Math.floor(bounds.getCenterX()) - 1, Math.floor(bounds.getCenterY()) - 1, 2, 2);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package visualization.minimap;
+
+import application.events.GridChangedEvent;
+import application.events.GridEnergizedEvent;
+import construction.canvas.GridCanvas;
+import domain.Grid;
+import domain.components.Component;
+import javafx.event.EventHandler;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.geometry.Point2D;
+import javafx.scene.Scene;
+import javafx.scene.input.MouseEvent;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// Keeps the minimap in line with the grid and pans the canvas when the minimap is clicked or dragged.
+// The minimap is only checked after a simulation was shown, the icons are up to date then. Only the components
+// named by the change events since are compared, unless a change is unknown. A placement names what it placed,
+// a delete what it took out and the neighbours it changed, an undo both what it took out and what it put back.
+public class MinimapController {
+
+    private final Minimap model = new Minimap();
+    private final Grid grid;
+    private final GridCanvas canvas;
+    private final Scene scene;
+
+    // the components changed, added or removed since the minimap was last checked
+    private final Set<Component> changedComponents = new LinkedHashSet<>();
+    private boolean checkAll = true;
+
+    // where in the view the minimap was pressed, relative to its center, so a drag does not make the view jump
+    private double dragOffsetX = 0;
+    private double dragOffsetY = 0;
+
+    public MinimapController(Grid grid, GridCanvas canvas, Scene scene) {
+        this.grid = grid;
+        this.canvas = canvas;
+        this.scene = scene;
+
+        model.setCanvasSize(canvas.getPrefWidth(), canvas.getPrefHeight());
+        canvas.prefWidthProperty().addListener((observable, oldValue, newValue) -> resizeCanvas());
+        canvas.prefHeightProperty().addListener((observable, oldValue, newValue) -> resizeCanvas());
+
+        canvas.translateXProperty().addListener((observable, oldValue, newValue) -> updateViewport());
+        canvas.translateYProperty().addListener((observable, oldValue, newValue) -> updateViewport());
+        canvas.scaleXProperty().addListener((observable, oldValue, newValue) -> updateViewport());
+        scene.widthProperty().addListener((observable, oldValue, newValue) -> updateViewport());
+        scene.heightProperty().addListener((observable, oldValue, newValue) -> updateViewport());
+        updateViewport();
+
+        model.addEventHandler(MouseEvent.MOUSE_PRESSED, beginPanEventHandler);
+        model.addEventHandler(MouseEvent.MOUSE_DRAGGED, onPanEventHandler);
+        refresh();
+    }
+
+    public Minimap getMinimap() {
+        return model;
+    }
+
+    public void handleGridChanged(GridChangedEvent event) {
+        if (event.changedComponents == null) {
+            checkAll = true;
+        } else {
+            changedComponents.addAll(event.changedComponents);
+            // not in the grid anymore, so checking them takes them off the minimap
+            changedComponents.addAll(event.removedComponents);
+        }
+    }
+
+    public void handleGridEnergized(GridEnergizedEvent event) {
+        if (event.delta == null) {
+            checkAll = true;
+        } else {
+            changedComponents.addAll(event.delta.getAffectedComponents());
+        }
+        refresh();
+    }
+
+    private void refresh() {
+        if (checkAll) {
+            model.checkAll(grid);
+        } else {
+            model.check(grid, changedComponents);
+        }
+        checkAll = false;
+        changedComponents.clear();
+        model.redraw();
+    }
+
+    private void resizeCanvas() {
+        model.setCanvasSize(canvas.getPrefWidth(), canvas.getPrefHeight());
+        model.redraw();
+        updateViewport();
+    }
+
+    // the part of the canvas the scene shows, the canvas sits at the origin of the scene's root
+    private void updateViewport() {
+        model.setViewport(canvas.parentToLocal(new BoundingBox(0, 0, scene.getWidth(), scene.getHeight())));
+    }
+
+    private final EventHandler<MouseEvent> beginPanEventHandler = event -> {
+        if (!event.isPrimaryButtonDown()) return;
+        Bounds view = model.getViewport().getBoundsInParent();
+        if (view.contains(event.getX(), event.getY())) {
+            dragOffsetX = event.getX() - view.getCenterX();
+            dragOffsetY = event.getY() - view.getCenterY();
+        } else {
+            // pressing outside the view moves the view there
+            dragOffsetX = 0;
+            dragOffsetY = 0;
+        }
+        centerView(event);
+        event.consume();
+    };
+
+    private final EventHandler<MouseEvent> onPanEventHandler = event -> {
+        if (!event.isPrimaryButtonDown()) return;
+        centerView(event);
+        event.consume();
+    };
+
+    // moves the canvas so the point under the mouse, less the drag offset, is in the middle of the scene
+    private void centerView(MouseEvent event) {
+        double x = (event.getX() - dragOffsetX) / model.getScale();
+        double y = (event.getY() - dragOffsetY) / model.getScale();
+        Point2D center = canvas.localToParent(x, y);
+        canvas.setTranslateX(canvas.getTranslateX() + scene.getWidth() / 2 - center.getX());
+        canvas.setTranslateY(canvas.getTranslateY() + scene.getHeight() / 2 - center.getY());
+    }
+}